@@ -0,0 +1,57 @@
+package com.nsweeney.scrabble_generator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates reproducible synthetic word lists for the benchmarks
+ */
+final class BenchmarkWords {
+    static final long SEED = 20240601L;
+
+    private static final String FULL_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final String COMMON_LETTERS = "AEILNORST";
+
+    private BenchmarkWords() {
+    }
+
+    /**
+     * Generates a list of random words
+     *
+     * @param count number of words
+     * @param overlap "high" draws from a few common letters so words share many letters, "low" draws from the full alphabet
+     * @return generated words, the same for the same arguments
+     */
+    static List<String> generate(int count, String overlap) {
+        String alphabet = overlap.equals("high") ? COMMON_LETTERS : FULL_ALPHABET;
+        Random random = new Random(SEED + count * 31L + overlap.hashCode());
+        List<String> words = new ArrayList<>();
+
+        for (int w = 0; w < count; w++) {
+            int length = 3 + random.nextInt(6);
+            StringBuilder word = new StringBuilder();
+            for (int l = 0; l < length; l++) {
+                word.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            words.add(word.toString());
+        }
+
+        return words;
+    }
+
+    /**
+     * Creates a board with every word placed using the deterministic backtracking strategy
+     *
+     * @param words order words
+     * @return completed board
+     */
+    static Board placedBoard(List<String> words) {
+        Board board = new Board(50, words, SEED);
+        if (!board.placeWords(new BacktrackingPlacement())) {
+            throw new IllegalStateException("Benchmark words could not be placed: " + words);
+        }
+
+        return board;
+    }
+}
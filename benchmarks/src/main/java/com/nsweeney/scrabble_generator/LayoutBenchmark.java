@@ -0,0 +1,54 @@
+package com.nsweeney.scrabble_generator;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures Board.placeWords over synthetic word lists of different sizes and letter overlap
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LayoutBenchmark {
+
+    @Param({"5", "10", "20"})
+    int wordCount;
+
+    @Param({"high", "low"})
+    String overlap;
+
+    @Param({"shuffle", "backtracking"})
+    String solver;
+
+    private List<String> words;
+    private PlacementStrategy strategy;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        words = BenchmarkWords.generate(wordCount, overlap);
+        strategy = solver.equals("backtracking") ? new BacktrackingPlacement() : new ShufflePlacement(1);
+    }
+
+    @Benchmark
+    public Board placeWords() {
+        Board board = new Board(50, words, BenchmarkWords.SEED);
+        board.placeWords(strategy);
+        return board;
+    }
+}
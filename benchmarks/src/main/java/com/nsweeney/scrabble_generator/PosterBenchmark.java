@@ -0,0 +1,46 @@
+package com.nsweeney.scrabble_generator;
+
+import java.awt.FontFormatException;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures Helper.GeneratePoster for a small board. The poster is written to Output/ in the working directory
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PosterBenchmark {
+
+    private Order order;
+    private Board board;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> words = BenchmarkWords.generate(4, "high");
+        order = new Order(words, "Benchmark", "jmh-poster-benchmark", false);
+
+        board = BenchmarkWords.placedBoard(words);
+    }
+
+    @Benchmark
+    public void generatePoster() throws IOException, FontFormatException {
+        Helper.GeneratePoster(order, board);
+    }
+}
@@ -0,0 +1,68 @@
+package com.nsweeney.scrabble_generator;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures Board.export and Helper.CropImage at several board sizes. Tiles are 1000px wide, so the word counts are kept small
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RenderBenchmark {
+
+    @Param({"2", "4", "8"})
+    int wordCount;
+
+    private Board board;
+    private String outputDir;
+    private BufferedImage uncropped;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        board = BenchmarkWords.placedBoard(BenchmarkWords.generate(wordCount, "high"));
+        outputDir = Files.createTempDirectory("render-benchmark").toString() + "/";
+
+        // Image the size of the board's export with a black border around the tiles for CropImage to remove
+        int tileWidth = TileAtlas.getInstance().getTileWidth();
+        int size = board.getGridSize() * tileWidth;
+        uncropped = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = uncropped.createGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, size, size);
+        g.setColor(Color.WHITE);
+        g.fillRect(tileWidth, tileWidth, size - 2 * tileWidth, size - 2 * tileWidth);
+        g.dispose();
+    }
+
+    @Benchmark
+    public void export() throws IOException {
+        board.export(outputDir);
+    }
+
+    @Benchmark
+    public BufferedImage cropImage() {
+        return Helper.CropImage(uncropped);
+    }
+}
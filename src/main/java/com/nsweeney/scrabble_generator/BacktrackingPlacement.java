@@ -0,0 +1,235 @@
+package com.nsweeney.scrabble_generator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Deterministic depth-first placement strategy. Words are placed most constrained first and only the last placement is undone when the search gets stuck.
+ * Words that do not fit yet are tried again after other words, so the search finds a layout whenever one exists within its node budget.
+ * Words inside another word, including single letters, are laid out by that word and not placed on their own
+ */
+public class BacktrackingPlacement implements PlacementStrategy {
+    /**
+     * Placements tried by the default strategy before it gives up
+     */
+    public static final int defaultMaxNodes = 800_000;
+
+    private final int maxNodes;
+
+    /**
+     * Creates a backtracking strategy with the default search limits
+     */
+    public BacktrackingPlacement() {
+        this(defaultMaxNodes);
+    }
+
+    /**
+     * @param maxNodes placements tried before the search gives up and the order is assumed invalid
+     */
+    public BacktrackingPlacement(int maxNodes) {
+        this.maxNodes = maxNodes;
+    }
+
+    @Override
+    public boolean placeWords(Board board) {
+        // Identical words share the same tiles, so each only needs placing once
+        List<String> remaining = new ArrayList<>(new LinkedHashSet<>(board.getWords()));
+        if (remaining.isEmpty()) {
+            return false;
+        }
+
+        // Every line of two or more tiles is a whole word, so a word whose letters would all sit on existing tiles, such as a
+        // single letter, lies inside another word. It can never add a tile, so it is satisfied once that word is placed
+        List<String> words = List.copyOf(remaining);
+        remaining.removeIf(word -> isContained(word, words));
+
+        // Start from the word sharing letters with the most other words. The counts are taken before sorting, as the
+        // comparator must not read the list while it is being sorted
+        Map<String, Integer> overlaps = new HashMap<>();
+        for (String word : remaining) {
+            overlaps.put(word, countOverlaps(word, remaining));
+        }
+        remaining.sort(Comparator.comparingInt((String word) -> -overlaps.get(word))
+                .thenComparing(word -> -word.length())
+                .thenComparing(Comparator.naturalOrder()));
+        String firstWord = remaining.remove(0);
+
+        // The board is unbounded, so growing it cannot help and a single search is enough
+        board.resetBoard(firstWord);
+
+        Search search = new Search(board);
+        if (search.place(new ArrayList<>(remaining), new HashSet<>())) {
+            board.completeLayout();
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Counts the other words that share at least one letter with the word
+     *
+     * @param word word to check
+     * @param words all words
+     * @return number of overlapping words
+     */
+    static int countOverlaps(String word, List<String> words) {
+        int overlaps = 0;
+        for (String other : words) {
+            if (other != word && sharesLetter(word, other)) {
+                overlaps++;
+            }
+        }
+
+        return overlaps;
+    }
+
+    /**
+     * Checks whether the word appears inside another of the words
+     *
+     * @param word word to check
+     * @param words all words, without duplicates
+     * @return True if another word contains the word
+     */
+    static boolean isContained(String word, List<String> words) {
+        for (String other : words) {
+            if (!other.equals(word) && other.contains(word)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    static boolean sharesLetter(String a, String b) {
+        for (int n = 0; n < a.length(); n++) {
+            if (b.indexOf(a.charAt(n)) >= 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * State of a single depth-first search, kept separate so one strategy can be shared between threads
+     */
+    private class Search {
+        private final Board board;
+        private int nodes;
+
+        Search(Board board) {
+            this.board = board;
+        }
+
+        /**
+         * Places the remaining words, undoing placements that lead to a dead end. A word may only fit once a word that is
+         * not placed yet gives it a letter to cross, so after trying each of the chosen word's positions the search also
+         * tries placing the other words first. This makes the search complete: within its node budget it finds a layout
+         * whenever one exists
+         *
+         * @param remaining words still to place
+         * @param deferred words not to choose until another word has been placed
+         * @return True if every word was placed; otherwise False
+         */
+        boolean place(List<String> remaining, Set<String> deferred) {
+            if (remaining.isEmpty()) {
+                return true;
+            }
+            if (++nodes > maxNodes) {
+                return false;
+            }
+
+            // Most constrained word first: the one with the fewest positions left
+            int chosen = -1;
+            int[] chosenPlacements = null;
+            for (int w = 0; w < remaining.size(); w++) {
+                String word = remaining.get(w);
+                int[] placements = board.findPlacements(word);
+
+                if (placements.length == 0) {
+                    // Tiles are never removed from under a word, so a word with no positions needs a letter from a word not yet placed
+                    if (!hasLetterSource(word, remaining)) {
+                        return false;
+                    }
+                    continue;
+                }
+                if (deferred.contains(word)) {
+                    continue;
+                }
+
+                if (chosenPlacements == null || placements.length < chosenPlacements.length) {
+                    chosen = w;
+                    chosenPlacements = placements;
+                }
+            }
+
+            if (chosenPlacements == null) {
+                return false;
+            }
+
+            String word = remaining.remove(chosen);
+            for (int p : orderByCompactness(word, chosenPlacements)) {
+                int i = chosenPlacements[p * 3];
+                int j = chosenPlacements[p * 3 + 1];
+                Board.Direction direction = Board.Direction.values()[chosenPlacements[p * 3 + 2]];
+
+                board.placeWord(i, j, word, direction);
+                // The new tiles can give the deferred words new positions, so they can be chosen again
+                if (place(remaining, new HashSet<>())) {
+                    return true;
+                }
+                board.undoLastPlacement();
+
+                if (nodes > maxNodes) {
+                    return false;
+                }
+            }
+            remaining.add(chosen, word);
+
+            deferred.add(word);
+            boolean placed = place(remaining, deferred);
+            deferred.remove(word);
+
+            return placed;
+        }
+
+        private boolean hasLetterSource(String word, List<String> remaining) {
+            for (String other : remaining) {
+                if (other != word && sharesLetter(word, other)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * Orders the placements so those growing the board the least are tried first
+         *
+         * @param word word being placed
+         * @param placements packed placements from Board.findPlacements
+         * @return placement indexes in the order to try them
+         */
+        private List<Integer> orderByCompactness(String word, int[] placements) {
+            int count = placements.length / 3;
+            int[] sizes = new int[count];
+            List<Integer> order = new ArrayList<>(count);
+
+            for (int p = 0; p < count; p++) {
+                sizes[p] = board.getBoundingSizeWith(placements[p * 3], placements[p * 3 + 1], word,
+                        Board.Direction.values()[placements[p * 3 + 2]]);
+                order.add(p);
+            }
+            order.sort(Comparator.comparingInt(p -> sizes[p]));
+
+            return order;
+        }
+    }
+}
@@ -1,22 +1,37 @@
 package com.nsweeney.scrabble_generator;
 
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-
-import javax.imageio.ImageIO;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 
 public class Board {
-    private int gridSize;
-    private char[][] grid;
+    private final TileStore tiles = new TileStore(); // Unbounded coordinates, tile (i, j) is row i, column j
+    private int gridSize; // Side of the square framing a completed layout
+    private int originRow; // Coordinates of the square's top left cell
+    private int originCol;
+    private int minRow; // Bounding box of the placed tiles, empty when minRow > maxRow
+    private int maxRow;
+    private int minCol;
+    private int maxCol;
     private final List<String> placedWords = new ArrayList<>();
+    private final LetterIndex letterIndex = new LetterIndex();
+    private int[] placedTiles = new int[128]; // Row and column of each new tile in placement order, used to undo placements and visit every tile
+    private int placedTileCount;
+    private int[] placements = new int[80]; // Per undoable placement: placedTileCount before it and the previous bounding box
+    private int placementCount;
     private List<String> words = new ArrayList<>();
     private final int retryCount;
+    private final long seed;
     private int score;
 
     /**
@@ -34,22 +49,74 @@ public class Board {
      * @param words list of words to display on the board
      */
     public Board(int retryCount, List<String> words) {
-        this.gridSize = Helper.CalculateSize(words);
-        this.grid = new char[gridSize][gridSize];
+        this(retryCount, words, new Random().nextLong());
+    }
+
+    /**
+     * Board class constructor with a fixed seed so the generated layout can be reproduced
+     *
+     * @param retryCount Times to retry generating before assumed invalid
+     * @param words list of words to display on the board
+     * @param seed seed used to shuffle the words
+     */
+    public Board(int retryCount, List<String> words, long seed) {
         this.retryCount = retryCount;
         this.words = words;
+        this.seed = seed;
 
         initialiseBoard();
     }
 
     /**
-     * Initialises the board's array with spaces
+     * Empties the board
      */
     final void initialiseBoard() {
-        for (int i = 0; i < gridSize; i++) {
-            for (int j = 0; j < gridSize; j++) {
-                grid[i][j] = ' ';
+        tiles.clear();
+        letterIndex.clear();
+        minRow = Integer.MAX_VALUE;
+        maxRow = Integer.MIN_VALUE;
+        minCol = Integer.MAX_VALUE;
+        maxCol = Integer.MIN_VALUE;
+        gridSize = 0;
+        originRow = 0;
+        originCol = 0;
+        placedTileCount = 0;
+        placementCount = 0;
+    }
+
+    /**
+     * Gets the tile at (i, j)
+     *
+     * @param i row
+     * @param j column
+     * @return letter, or ' ' if empty
+     */
+    private char cell(int i, int j) {
+        return tiles.get(i, j);
+    }
+
+    /**
+     * Sets the tile at (i, j) and records it in the letter index, bounding box and placement history if it was empty
+     *
+     * @param i row
+     * @param j column
+     * @param letter letter to place
+     */
+    private void setCell(int i, int j, char letter) {
+        if (tiles.get(i, j) == ' ') {
+            tiles.set(i, j, letter);
+            letterIndex.add(letter, i, j);
+            minRow = Math.min(minRow, i);
+            maxRow = Math.max(maxRow, i);
+            minCol = Math.min(minCol, j);
+            maxCol = Math.max(maxCol, j);
+
+            if (placedTileCount * 2 == placedTiles.length) {
+                placedTiles = Arrays.copyOf(placedTiles, placedTiles.length * 2);
             }
+            placedTiles[placedTileCount * 2] = i;
+            placedTiles[placedTileCount * 2 + 1] = j;
+            placedTileCount++;
         }
     }
 
@@ -59,7 +126,7 @@ public class Board {
      *
      * @param word random first word to place
      */
-    private void resetBoard(String word) {
+    void resetBoard(String word) {
         initialiseBoard();
         placeFirstWord(word);
         placedWords.clear();
@@ -67,17 +134,15 @@ public class Board {
     }
 
     /**
-     * Places the provided word in the middle of the board
+     * Places the provided word horizontally, centred on the origin
      *
      * @param word randomly chosen first word
      */
     private void placeFirstWord(String word) {
-        int startX = gridSize / 2;
-        int startY = (gridSize / 2) - (word.length() / 2);
+        int startY = -(word.length() / 2);
         for (int i = 0; i < word.length(); i++) {
-            grid[startX][startY + i] = word.charAt(i);
+            setCell(0, startY + i, word.charAt(i));
         }
-        printBoard();
     }
 
     /**
@@ -85,8 +150,8 @@ public class Board {
      */
     void printBoard() {
         for (int i = 0; i < gridSize; i++) {
-            for (int j = 0; j < grid[i].length; j++) {
-                System.out.print(grid[i][j] + " ");
+            for (int j = 0; j < gridSize; j++) {
+                System.out.print(cell(originRow + i, originCol + j) + " ");
             }
             System.out.print('\n');
 
@@ -94,73 +159,218 @@ public class Board {
     }
 
     /**
-     * Main control loop for placing words on the board. The words are shuffled each iteration to reduce incorrect invalid results and develop differing outputs.
+     * Main control loop for placing words on the board. The first iteration takes the words in the order given (see OrderAnalyzer),
+     * after which they are shuffled each iteration to reduce incorrect invalid results and develop differing outputs.
      *
      */
     public boolean placeWords() {
+        return placeWords(new Random(seed), retryCount, true, () -> false);
+    }
+
+    /**
+     * Portfolio version of placeWords that splits the retries between independent attempts on separate boards and runs them in the provided pool.
+     * Each attempt is seeded from the board's seed and the successful attempt with the lowest index is kept, so the result is reproducible.
+     * Only the first attempt starts with the words in the order given, the others start shuffled.
+     * Attempts after a successful one are cancelled.
+     *
+     * @param pool pool to run the attempts in
+     * @param attempts number of independent attempts (1 is the same as placeWords())
+     * @return True if placed; otherwise False
+     */
+    public boolean placeWords(ForkJoinPool pool, int attempts) {
+        if (attempts <= 1) {
+            return placeWords();
+        }
+
+        int attemptRetries = Math.max(1, (retryCount + attempts - 1) / attempts);
+        AtomicInteger winner = new AtomicInteger(Integer.MAX_VALUE);
+        List<Board> boards = new ArrayList<>();
+        List<ForkJoinTask<Boolean>> tasks = new ArrayList<>();
+
+        for (int k = 0; k < attempts; k++) {
+            int index = k;
+            Board attempt = new Board(attemptRetries, words, seed ^ (k * 0x9E3779B97F4A7C15L));
+            boards.add(attempt);
+
+            tasks.add(pool.submit(() -> {
+                boolean placed = attempt.placeWords(new Random(attempt.seed), attemptRetries, index == 0, () -> winner.get() < index);
+                if (placed) {
+                    winner.accumulateAndGet(index, Math::min);
+                }
+                return placed;
+            }));
+        }
+
+        for (ForkJoinTask<Boolean> task : tasks) {
+            task.join();
+        }
+
+        if (winner.get() == Integer.MAX_VALUE) {
+            return false;
+        }
+
+        copyLayout(boards.get(winner.get()));
+
+        return true;
+    }
+
+    /**
+     * Replaces this board's tiles, placed words and score with another board's
+     *
+     * @param other board to copy
+     */
+    void copyLayout(Board other) {
+        initialiseBoard();
+        for (int t = 0; t < other.placedTileCount; t++) {
+            int i = other.placedTiles[t * 2];
+            int j = other.placedTiles[t * 2 + 1];
+            setCell(i, j, other.cell(i, j));
+        }
+        gridSize = other.gridSize;
+        originRow = other.originRow;
+        originCol = other.originCol;
+
+        placedWords.clear();
+        placedWords.addAll(other.placedWords);
+        score = other.score;
+    }
+
+    /**
+     * Gets a copy of the completed board's tiles, used to store a completed layout
+     *
+     * @return row-major tiles, gridSize * gridSize long
+     */
+    char[] getLayout() {
+        char[] layout = new char[gridSize * gridSize];
+        Arrays.fill(layout, ' ');
+        for (int t = 0; t < placedTileCount; t++) {
+            int i = placedTiles[t * 2];
+            int j = placedTiles[t * 2 + 1];
+            layout[(i - originRow) * gridSize + j - originCol] = cell(i, j);
+        }
+
+        return layout;
+    }
+
+    /**
+     * Restores a completed layout from getLayout() without running a placement strategy, and calculates its score
+     *
+     * @param size board length/width of the layout
+     * @param layout row-major tiles
+     */
+    void loadLayout(int size, char[] layout) {
+        initialiseBoard();
+        for (int position = 0; position < layout.length; position++) {
+            if (layout[position] != ' ') {
+                setCell(position / size, position % size, layout[position]);
+            }
+        }
+        gridSize = size;
+
+        placedWords.clear();
+        placedWords.addAll(words);
+        score = calculateScore();
+    }
+
+    /**
+     * Places the words using the provided strategy, then trims the board and calculates its score
+     *
+     * @param strategy placement strategy
+     * @return True if placed; otherwise False
+     */
+    public boolean placeWords(PlacementStrategy strategy) {
+        long start = System.nanoTime();
+        try {
+            return strategy.placeWords(this);
+        } finally {
+            Metrics.placeWords.record(start);
+        }
+    }
+
+    /**
+     * Shuffle and restart loop shared by the sequential and portfolio modes
+     *
+     * @param random source of the word shuffles
+     * @param retryCount Times to retry generating before assumed invalid
+     * @param givenOrderFirst try the words in the order given before shuffling
+     * @param cancelled checked between placements, stops the attempt when true
+     * @return True if placed; otherwise False
+     */
+    private boolean placeWords(Random random, int retryCount, boolean givenOrderFirst, BooleanSupplier cancelled) {
         boolean complete = false;
         int retries = 0;
         int previousSize = Integer.MAX_VALUE;
 
         while (!complete && retries < retryCount) {
+            if (cancelled.getAsBoolean()) {
+                return false;
+            }
 
             List<String> currentWords = new ArrayList<>(words);
-            Collections.shuffle(currentWords);
+            if (retries > 0 || !givenOrderFirst) {
+                Collections.shuffle(currentWords, random);
+            }
 
             resetBoard(currentWords.get(0));
             currentWords.remove(0);
 
             while (!currentWords.isEmpty()) {
+                if (cancelled.getAsBoolean()) {
+                    return false;
+                }
 
                 boolean placed = false;
                 String currentWord = currentWords.get(0);
 
-                for (int i = 0; i < gridSize; i++) {
-                    for (int j = 0; j < gridSize; j++) {
-                        char letter = grid[i][j];
+                // Only tiles sharing a letter with the word can be an intersection
+                for (int l = 0; l < currentWord.length() && !placed; l++) {
+                    char letter = currentWord.charAt(l);
 
-                        if (letter == ' ') {
+                    if (currentWord.indexOf(letter) != l) {
+                        continue; // Letter already tried
+                    }
+
+                    for (int n = 0; n < letterIndex.size(letter); n++) {
+                        int i = letterIndex.row(letter, n);
+                        int j = letterIndex.col(letter, n);
+
+                        if (cell(i, j) != letter) {
                             continue;
                         }
-                        // If match
-                        if (currentWord.contains(String.valueOf(letter))) {
-                            // Find Potential
-                            if (checkValid(i, j, currentWord)) {
-                                // Placed so break and go to next word
-                                placed = true;
-                                currentWords.remove(0);
-                                break;
-                            }
+                        // Find Potential
+                        if (checkValid(i, j, currentWord)) {
+                            // Placed so break and go to next word
+                            placed = true;
+                            currentWords.remove(0);
+                            break;
                         }
-
-                    }
-                    if (placed) {
-                        break;
                     }
                 }
 
                 if (!placed) {
                     if (currentWords.size() > 1) {
                         if (previousSize == currentWords.size()) {
+                            // The board has no edges to outgrow, so a word that still fits nowhere needs a new shuffle
                             retries++;
-                            resizeGrid();
+                            Metrics.retries.increment();
                             break;
                         }
 
                         currentWords.remove(0);
                         currentWords.add(currentWord);
+                        Metrics.rotations.increment();
                         previousSize = currentWords.size();
                     } else {
                         retries++;
+                        Metrics.retries.increment();
                         break;
                     }
                 }
             }
 
             if (currentWords.isEmpty()) {
-                trimGrid();
+                completeLayout();
                 complete = true;
-                score = calculateScore();
             }
         }
 
@@ -202,43 +412,31 @@ public class Board {
      * @return Word index offset
      */
     int checkVertical(int i, int j, String word) {
-        List<Integer> indexes = getAllIndexes(word, grid[i][j]);
+        int overlapIndex = word.indexOf(cell(i, j));
 
-        for (int overlapIndex : indexes) {
-            boolean found = true;
+        for (; overlapIndex >= 0; overlapIndex = word.indexOf(cell(i, j), overlapIndex + 1)) {
+            int start = i - overlapIndex;
+            int end = start + word.length() - 1;
 
+            boolean found = true;
             for (int letterIndex = 0; letterIndex < word.length(); letterIndex++) {
-                if (i + letterIndex - overlapIndex <= 0 || i + letterIndex - overlapIndex >= gridSize) {
-                    found = false;
-                    break;
-                }
-
-                char currentCell = grid[i + letterIndex - overlapIndex][j];
+                char currentCell = cell(start + letterIndex, j);
 
                 if (currentCell != ' ' && currentCell != word.charAt(letterIndex)) {
                     found = false;
                     break;
                 }
-
-                if (letterIndex - overlapIndex == 0) {
-                    continue;
-                }
-
-                if (!checkNeighbours(i + letterIndex - overlapIndex, j, i, j)) {
-                    found = false;
-                    break;
-                }
             }
 
-            if (found) {
-                if (!(i - overlapIndex <= 0 || i - overlapIndex + word.length() >= gridSize)) {
-                    if (grid[i - overlapIndex - 1][j] != ' ' || grid[i - overlapIndex + word.length()][j] != ' ') {
-                        break;
-                    }
-                }
+            if (!found || !checkNeighbours(j, start, end, i, Direction.vertical)) {
+                continue;
+            }
 
-                return overlapIndex;
+            if (cell(start - 1, j) != ' ' || cell(end + 1, j) != ' ') {
+                break;
             }
+
+            return overlapIndex;
         }
 
         return -1;
@@ -254,98 +452,54 @@ public class Board {
      * @return Word index offset
      */
     int checkHorizontal(int i, int j, String word) {
-        List<Integer> indexes = getAllIndexes(word, grid[i][j]);
+        int overlapIndex = word.indexOf(cell(i, j));
+
+        for (; overlapIndex >= 0; overlapIndex = word.indexOf(cell(i, j), overlapIndex + 1)) {
+            int start = j - overlapIndex;
+            int end = start + word.length() - 1;
 
-        for (int overlapIndex : indexes) {
             boolean found = true;
             for (int letterIndex = 0; letterIndex < word.length(); letterIndex++) {
-                if (j + letterIndex - overlapIndex <= 0 || j + letterIndex - overlapIndex >= gridSize) {
-                    found = false;
-                    break;
-                }
+                char currentCell = cell(i, start + letterIndex);
 
-                char currentCell = grid[i][j + letterIndex - overlapIndex];
                 if (currentCell != ' ' && currentCell != word.charAt(letterIndex)) {
                     found = false;
                     break;
                 }
-                if (letterIndex - overlapIndex == 0) {
-                    continue;
-                }
-                if (!checkNeighbours(i, j + letterIndex - overlapIndex, i, j)) {
-                    found = false;
-                    break;
-                }
             }
-            if (found) {
-                // Check if string is valid
-                if (!(j - overlapIndex <= 0 || j - overlapIndex + word.length() >= gridSize)) {
-                    if (grid[i][j - overlapIndex - 1] != ' ' || grid[i][j - overlapIndex + word.length()] != ' ') {
-                        break;
-                    }
-                }
 
-                return overlapIndex;
+            if (!found || !checkNeighbours(i, start, end, j, Direction.horizontal)) {
+                continue;
+            }
+
+            // Check if string is valid
+            if (cell(i, start - 1) != ' ' || cell(i, end + 1) != ' ') {
+                break;
             }
 
+            return overlapIndex;
         }
 
         return -1;
     }
 
     /**
-     * Finds and returns all indexes for the target letter in the provided string
-     *
-     * @param str string to check
-     * @param target present letter
-     * @return List of indexes for target in str
-     */
-    List<Integer> getAllIndexes(String str, char target) {
-        List<Integer> indexes = new ArrayList<>();
-        int index = str.indexOf(target);
-
-        while (index >= 0) {
-            indexes.add(index);
-            index = str.indexOf(target, index + 1);
-        }
-
-        return indexes;
-    }
-
-    /**
-     * Checks the corresponding neighbour tiles for (i, j) to determine if any external collisions occur. E.g. word does not collide with board but extends a word into an invalid word.
+     * Checks the lines either side of a word for tiles that would cause external collisions. E.g. word does not collide with board but extends a word into an invalid word.
+     * The intersection tile is skipped as it is already part of a word on the board.
      *
-     * @param i current tile's row
-     * @param j current tile's column
-     * @param intersectI Board intersection point row
-     * @param intersectJ Board intersection point column
+     * @param line row (horizontal) or column (vertical) the word is on
+     * @param from first tile of the word along the line
+     * @param to last tile of the word along the line
+     * @param intersect board intersection point along the line
+     * @param direction word direction
      * @return if no collision true; otherwise false
      */
-    boolean checkNeighbours(int i, int j, int intersectI, int intersectJ) {
-
-        // Neighbour coordinates
-        int[] iOffset = { -1, 1, 0, 0 };
-        int[] jOffset = { 0, 0, -1, 1 };
-
-        for (int neighbour = 0; neighbour < iOffset.length; neighbour++) {
-            int checkI = iOffset[neighbour] + i;
-            int checkJ = jOffset[neighbour] + j;
-
-            // Checked in validity
-            if (checkI == intersectI || checkJ == intersectJ) {
-                continue;
-            }
-
-            if (checkI >= 0 && checkI < gridSize && checkJ >= 0 && checkJ < gridSize) {
-                char neighborCell = grid[checkI][checkJ];
-
-                if (neighborCell != ' ') {
-                    return false;
-                }
-            }
+    boolean checkNeighbours(int line, int from, int to, int intersect, Direction direction) {
+        if (direction == Direction.horizontal) {
+            return tiles.isRowClear(line - 1, from, to, intersect) && tiles.isRowClear(line + 1, from, to, intersect);
         }
 
-        return true;
+        return tiles.isColumnClear(line - 1, from, to, intersect) && tiles.isColumnClear(line + 1, from, to, intersect);
     }
 
     /**
@@ -356,15 +510,26 @@ public class Board {
      * @param word Order word
      * @param direction Word direction ("horizontal"/"vertical")
      */
-    private void placeWord(int i, int j, String word, Direction direction) {
+    void placeWord(int i, int j, String word, Direction direction) {
+        if (placementCount * 5 == placements.length) {
+            placements = Arrays.copyOf(placements, placements.length * 2);
+        }
+        int mark = placementCount * 5;
+        placements[mark] = placedTileCount;
+        placements[mark + 1] = minRow;
+        placements[mark + 2] = maxRow;
+        placements[mark + 3] = minCol;
+        placements[mark + 4] = maxCol;
+        placementCount++;
+
         if (direction.equals(Direction.horizontal)) {
 
             for (int jj = 0; jj < word.length(); jj++) {
-                grid[i][j + jj] = word.charAt(jj);
+                setCell(i, j + jj, word.charAt(jj));
             }
         } else {
             for (int ii = 0; ii < word.length(); ii++) {
-                grid[i + ii][j] = word.charAt(ii);
+                setCell(i + ii, j, word.charAt(ii));
             }
         }
 
@@ -372,109 +537,256 @@ public class Board {
     }
 
     /**
-     * Clones the board and resizes it to 2n*2n
+     * Removes the most recently placed word, restoring the tiles, index and bounding box from before it was placed.
+     * Only placements made since the last reset can be undone
      */
-    void resizeGrid() {
-        int newGridSize = gridSize * 2;
-        int padding = gridSize / 2;
+    void undoLastPlacement() {
+        placementCount--;
+        int mark = placementCount * 5;
 
-        char[][] newGrid = new char[newGridSize][newGridSize];
+        while (placedTileCount > placements[mark]) {
+            placedTileCount--;
+            int i = placedTiles[placedTileCount * 2];
+            int j = placedTiles[placedTileCount * 2 + 1];
 
-        for (int i = 0; i < gridSize; i++) {
-            for (int j = 0; j < gridSize; j++) {
-                newGrid[padding + i][padding + j] = grid[i][j];
-            }
+            letterIndex.removeLast(cell(i, j));
+            tiles.remove(i, j);
         }
 
-        grid = newGrid;
-        gridSize = newGridSize;
+        minRow = placements[mark + 1];
+        maxRow = placements[mark + 2];
+        minCol = placements[mark + 3];
+        maxCol = placements[mark + 4];
+        placedWords.remove(placedWords.size() - 1);
     }
 
     /**
-     * Removes any empty rows or columns to create a new square board
+     * Checks if the word can be placed starting at (i, j) in the provided direction. Unlike checkValid the word may cross several words on the board,
+     * but it must cross at least one, add at least one tile, and every new tile must not touch a tile beside it
+     *
+     * @param i Starting row
+     * @param j Starting column
+     * @param word Order word
+     * @param direction Word direction
+     * @return True if the word can be placed; otherwise False
      */
-    private void trimGrid() {
-        int minX = gridSize;
-        int maxX = -1;
-        int minY = gridSize;
-        int maxY = -1;
-
-        for (int x = 0; x < gridSize; x++) {
-            for (int y = 0; y < gridSize; y++) {
-                if (grid[x][y] != ' ') {
-                    if (x < minX)
-                        minX = x;
-                    if (x > maxX)
-                        maxX = x;
-                    if (y < minY)
-                        minY = y;
-                    if (y > maxY)
-                        maxY = y;
+    boolean canPlace(int i, int j, String word, Direction direction) {
+        boolean horizontal = direction == Direction.horizontal;
+        int length = word.length();
+        int endI = horizontal ? i : i + length - 1;
+        int endJ = horizontal ? j + length - 1 : j;
+
+        // Tiles directly before and after the word would extend it
+        int beforeI = horizontal ? i : i - 1;
+        int beforeJ = horizontal ? j - 1 : j;
+        int afterI = horizontal ? i : endI + 1;
+        int afterJ = horizontal ? endJ + 1 : j;
+        if (cell(beforeI, beforeJ) != ' ' || cell(afterI, afterJ) != ' ') {
+            return false;
+        }
+
+        int crossings = 0;
+        boolean previousExisting = false;
+        for (int n = 0; n < length; n++) {
+            int ci = horizontal ? i : i + n;
+            int cj = horizontal ? j + n : j;
+            char current = cell(ci, cj);
+
+            if (current != ' ') {
+                // Two existing tiles in a row are already part of a word along this line
+                if (current != word.charAt(n) || previousExisting) {
+                    return false;
+                }
+                crossings++;
+                previousExisting = true;
+                continue;
+            }
+            previousExisting = false;
+
+            if (horizontal) {
+                if (cell(ci - 1, cj) != ' ' || cell(ci + 1, cj) != ' ') {
+                    return false;
                 }
+            } else if (cell(ci, cj - 1) != ' ' || cell(ci, cj + 1) != ' ') {
+                return false;
             }
         }
 
-        int trimmedWidth = maxY - minY + 1;
-        int trimmedHeight = maxX - minX + 1;
+        return crossings > 0 && crossings < length;
+    }
+
+    /**
+     * Finds every position the word can be placed at that crosses a tile on the board
+     *
+     * @param word Order word
+     * @return Packed placements: row, column and direction ordinal for each
+     */
+    int[] findPlacements(String word) {
+        int[] found = new int[24];
+        int count = 0;
+
+        for (int l = 0; l < word.length(); l++) {
+            char letter = word.charAt(l);
 
-        int squareSize = Math.max(trimmedWidth, trimmedHeight);
-        char[][] trimmedGrid = new char[squareSize][squareSize];
+            for (int n = 0; n < letterIndex.size(letter); n++) {
+                int anchorI = letterIndex.row(letter, n);
+                int anchorJ = letterIndex.col(letter, n);
 
-        for (int i = 0; i < squareSize; i++) {
-            for (int j = 0; j < squareSize; j++) {
-                trimmedGrid[i][j] = ' ';
+                if (cell(anchorI, anchorJ) != letter) {
+                    continue;
+                }
+
+                for (Direction direction : Direction.values()) {
+                    int i = direction == Direction.horizontal ? anchorI : anchorI - l;
+                    int j = direction == Direction.horizontal ? anchorJ - l : anchorJ;
+
+                    if (!canPlace(i, j, word, direction) || containsPlacement(found, count, i, j, direction)) {
+                        continue;
+                    }
+
+                    if (count * 3 == found.length) {
+                        found = Arrays.copyOf(found, found.length * 2);
+                    }
+                    found[count * 3] = i;
+                    found[count * 3 + 1] = j;
+                    found[count * 3 + 2] = direction.ordinal();
+                    count++;
+                }
             }
         }
 
-        int offsetI = (squareSize - trimmedHeight) / 2;
-        int offsetJ = (squareSize - trimmedWidth) / 2;
+        return Arrays.copyOf(found, count * 3);
+    }
 
-        for (int i = 0; i < trimmedHeight; i++) {
-            for (int j = 0; j < trimmedWidth; j++) {
-                trimmedGrid[offsetI + i][offsetJ + j] = grid[minX + i][minY + j];
+    /**
+     * Checks if a packed placement list already holds a placement, as words crossing several tiles are found once per crossing
+     */
+    private static boolean containsPlacement(int[] found, int count, int i, int j, Direction direction) {
+        for (int n = 0; n < count; n++) {
+            if (found[n * 3] == i && found[n * 3 + 1] == j && found[n * 3 + 2] == direction.ordinal()) {
+                return true;
             }
         }
 
-        grid = trimmedGrid;
-        gridSize = squareSize;
+        return false;
+    }
+
+    /**
+     * Finishes a layout once every word is placed by framing the tiles in a square and calculating its score
+     */
+    void completeLayout() {
+        trimGrid();
+        score = calculateScore();
+    }
+
+    /**
+     * Frames the placed tiles in the smallest square around them, centring them along the shorter side. No tiles move,
+     * the square is an origin and a size over the board's coordinates
+     */
+    private void trimGrid() {
+        long start = System.nanoTime();
+        int trimmedWidth = maxCol - minCol + 1;
+        int trimmedHeight = maxRow - minRow + 1;
+
+        gridSize = Math.max(trimmedWidth, trimmedHeight);
+        originRow = minRow - (gridSize - trimmedHeight) / 2;
+        originCol = minCol - (gridSize - trimmedWidth) / 2;
+
+        Metrics.trimGrid.record(start);
     }
 
     /**
      * Exports the current board to a png image that is stored in the provided directory
      *
      * @param dir Directory path
+     * @throws IOException if the image cannot be written or a letter on the board has no tile image
      */
-    void export(String dir) {
+    void export(String dir) throws IOException {
+        long start = System.nanoTime();
         try {
-            BufferedImage firstImage = ImageIO.read(Main.class.getResource("/letters/A.png"));
-            int imageWidth = firstImage.getWidth();
+            TileAtlas atlas = TileAtlas.getInstance();
+            int tileSize = atlas.getTileWidth();
+            int imageSize = gridSize * tileSize;
 
-            BufferedImage finalImage = new BufferedImage(gridSize
-                    * imageWidth,
-                    gridSize * imageWidth,
-                    BufferedImage.TYPE_INT_ARGB);
+            Files.createDirectories(Paths.get(dir));
+            // The trimmed grid is already the tiles' bounding square, so the image needs no cropping. Rows are rendered as
+            // the encoder asks for them, so memory follows the image width rather than its area
+            long writeStart = System.nanoTime();
+            Helper.outputEncoder.write(imageSize, imageSize, true, rowSource(atlas, tileSize), new File(dir + "boardImage.png"));
+            Metrics.pngWrite.record(writeStart);
+            System.out.println("image successful");
 
-            for (int i = 0; i < gridSize; i++) {
-                for (int j = 0; j < gridSize; j++) {
-                    char currentLetter = grid[i][j];
+        } finally {
+            Metrics.export.record(start);
+        }
+    }
 
-                    if (currentLetter != ' ') {
-                        String imageName = grid[i][j] + ".png";
-                        BufferedImage img = ImageIO.read(Main.class.getResource("/letters/" + imageName));
-                        finalImage.getGraphics().drawImage(img, i * imageWidth, j * imageWidth, null);
-                    }
-                }
-            }
+    /**
+     * Exports a small preview of the board, drawn directly with downscaled tiles, to preview.png in the provided directory
+     *
+     * @param dir Directory path
+     * @param maxSize Largest width (and height) of the preview in pixels
+     * @throws IOException if the preview cannot be written or a letter on the board has no tile image
+     */
+    void exportPreview(String dir, int maxSize) throws IOException {
+        long start = System.nanoTime();
+        try {
+            TileAtlas atlas = TileAtlas.getInstance();
+            int tileSize = Math.max(1, Math.min(atlas.getTileWidth(), maxSize / gridSize));
+            int imageSize = gridSize * tileSize;
 
             Files.createDirectories(Paths.get(dir));
-            ImageIO.write(Helper.CropImage(finalImage), "png", new File(dir + "boardImage.png"));
-            System.out.println("image successful");
+            Helper.previewEncoder.write(imageSize, imageSize, true, rowSource(atlas, tileSize), new File(dir + "preview.png"));
+            System.out.println("preview successful");
 
-        } catch (IOException e) {
-            //To Do: Error Handling
+        } finally {
+            Metrics.preview.record(start);
         }
     }
 
+    /**
+     * Supplies the board image's rows straight from the tile pixels, so the image never exists in memory as a whole.
+     * Tile (i, j) is drawn at x = i, y = j, so each row of pixels crosses one column of the board. The encoder asks for
+     * bands of rows on several threads at once, so the letters are copied out of the tile store first
+     *
+     * @param atlas Tile images
+     * @param tileSize Width (and height) of each tile in pixels
+     * @return row source for a gridSize * tileSize square image
+     * @throws IOException if a letter on the board has no tile image
+     */
+    private PngEncoder.RowSource rowSource(TileAtlas atlas, int tileSize) throws IOException {
+        char[] columns = new char[gridSize * gridSize]; // Column-major, so each row of pixels reads one contiguous run
+        Arrays.fill(columns, ' ');
+        int[][] tilePixels = new int[26][];
+
+        for (int t = 0; t < placedTileCount; t++) {
+            int i = placedTiles[t * 2];
+            int j = placedTiles[t * 2 + 1];
+            char currentLetter = cell(i, j);
+
+            int[] tile = atlas.getTilePixels(currentLetter, tileSize);
+            if (tile == null) {
+                throw new IOException("No tile image for letter " + currentLetter);
+            }
+            tilePixels[currentLetter - 'A'] = tile;
+            columns[(j - originCol) * gridSize + i - originRow] = currentLetter;
+        }
+
+        return (y, argb) -> {
+            int column = (y / tileSize) * gridSize;
+            int tileRow = (y % tileSize) * tileSize;
+
+            for (int i = 0; i < gridSize; i++) {
+                char currentLetter = columns[column + i];
+                if (currentLetter == ' ') {
+                    Arrays.fill(argb, i * tileSize, (i + 1) * tileSize, 0);
+                } else {
+                    System.arraycopy(tilePixels[currentLetter - 'A'], tileRow, argb, i * tileSize, tileSize);
+                }
+            }
+        };
+    }
+
     /**
      * Calculates the board's score based on each word's score
      *
@@ -491,6 +803,57 @@ public class Board {
         return currentScore;
     }
 
+    /**
+     * Gets the words the board is made from
+     *
+     * @return order words
+     */
+    List<String> getWords() {
+        return words;
+    }
+
+    int getGridSize() {
+        return gridSize;
+    }
+
+    /**
+     * Gets the side of the smallest square around the placed tiles
+     *
+     * @return bounding square size, 0 if the board is empty
+     */
+    int getBoundingSize() {
+        if (minRow > maxRow) {
+            return 0;
+        }
+
+        return Math.max(maxRow - minRow + 1, maxCol - minCol + 1);
+    }
+
+    /**
+     * Gets the side of the smallest square around the placed tiles if the word were placed at (i, j)
+     *
+     * @param i Starting row
+     * @param j Starting column
+     * @param word Order word
+     * @param direction Word direction
+     * @return bounding square size after the placement
+     */
+    int getBoundingSizeWith(int i, int j, String word, Direction direction) {
+        int endI = direction == Direction.horizontal ? i : i + word.length() - 1;
+        int endJ = direction == Direction.horizontal ? j + word.length() - 1 : j;
+
+        return Math.max(Math.max(maxRow, endI) - Math.min(minRow, i) + 1, Math.max(maxCol, endJ) - Math.min(minCol, j) + 1);
+    }
+
+    /**
+     * Gets the seed used to shuffle the words, which reproduces this board's layout
+     *
+     * @return board's seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
     /**
      * Gets and returns the board's score
      *
@@ -0,0 +1,125 @@
+package com.nsweeney.scrabble_generator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Anytime placement strategy that keeps searching for a smaller board until its time budget runs out.
+ * The first layout comes from another strategy, after which randomised greedy layouts that favour compact placements are built and the smallest bounding square is kept
+ */
+public class CompactLayoutOptimizer implements PlacementStrategy {
+    private final PlacementStrategy initialStrategy;
+    private final long budgetMillis;
+
+    /**
+     * @param initialStrategy strategy used to find the first layout
+     * @param budgetMillis time spent improving the layout after the first one is found
+     */
+    public CompactLayoutOptimizer(PlacementStrategy initialStrategy, long budgetMillis) {
+        this.initialStrategy = initialStrategy;
+        this.budgetMillis = budgetMillis;
+    }
+
+    @Override
+    public boolean placeWords(Board board) {
+        if (!initialStrategy.placeWords(board)) {
+            return false;
+        }
+
+        long deadline = System.nanoTime() + budgetMillis * 1_000_000L;
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(board.getWords()));
+        Random random = new Random(board.getSeed());
+        Board candidate = new Board(1, board.getWords(), board.getSeed());
+
+        // No board can be narrower than its longest word
+        int smallestPossible = 0;
+        for (String word : words) {
+            smallestPossible = Math.max(smallestPossible, word.length());
+        }
+
+        while (System.nanoTime() < deadline && board.getGridSize() > smallestPossible) {
+            // Accept a placement up to one tile larger than the best more often early on, like a cooling temperature
+            double remaining = (double) (deadline - System.nanoTime()) / (budgetMillis * 1_000_000L);
+            if (buildLayout(candidate, words, random, board.getGridSize(), remaining * 0.3)) {
+                board.copyLayout(candidate);
+                candidate = new Board(1, board.getWords(), board.getSeed()); // Completing a layout trims the scratch board
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Builds one randomised layout, placing each word at one of its most compact positions
+     *
+     * @param candidate scratch board
+     * @param words distinct order words
+     * @param random source of the word order and tie breaks
+     * @param bestSize bounding square of the best layout so far, layouts that reach it are abandoned
+     * @param looseness chance of accepting a placement one tile larger than the most compact
+     * @return True if a layout smaller than bestSize was completed; otherwise False
+     */
+    private boolean buildLayout(Board candidate, List<String> words, Random random, int bestSize, double looseness) {
+        List<String> pending = new ArrayList<>(words);
+        Collections.shuffle(pending, random);
+
+        candidate.resetBoard(pending.remove(0));
+
+        while (!pending.isEmpty()) {
+            boolean placed = false;
+
+            for (int w = 0; w < pending.size() && !placed; w++) {
+                String word = pending.get(w);
+                int[] placements = candidate.findPlacements(word);
+                if (placements.length == 0) {
+                    continue;
+                }
+
+                int chosen = choosePlacement(candidate, word, placements, random, looseness);
+                candidate.placeWord(placements[chosen * 3], placements[chosen * 3 + 1], word,
+                        Board.Direction.values()[placements[chosen * 3 + 2]]);
+                pending.remove(w);
+                placed = true;
+            }
+
+            if (!placed || candidate.getBoundingSize() >= bestSize) {
+                return false;
+            }
+        }
+
+        candidate.completeLayout();
+        return candidate.getGridSize() < bestSize;
+    }
+
+    /**
+     * Picks a random placement among the most compact ones (or those one tile larger when loose)
+     *
+     * @return index of the chosen placement
+     */
+    private int choosePlacement(Board candidate, String word, int[] placements, Random random, double looseness) {
+        int count = placements.length / 3;
+        int[] sizes = new int[count];
+        int smallest = Integer.MAX_VALUE;
+
+        for (int p = 0; p < count; p++) {
+            sizes[p] = candidate.getBoundingSizeWith(placements[p * 3], placements[p * 3 + 1], word,
+                    Board.Direction.values()[placements[p * 3 + 2]]);
+            smallest = Math.min(smallest, sizes[p]);
+        }
+
+        int limit = random.nextDouble() < looseness ? smallest + 1 : smallest;
+        int chosen = -1;
+        int seen = 0;
+        for (int p = 0; p < count; p++) {
+            // Reservoir sampling keeps the choice uniform without building a list
+            if (sizes[p] <= limit && random.nextInt(++seen) == 0) {
+                chosen = p;
+            }
+        }
+
+        return chosen;
+    }
+}
@@ -1,20 +1,31 @@
 package com.nsweeney.scrabble_generator;
 
 import java.awt.Color;
-import java.awt.Font;
 import java.awt.FontFormatException;
 import java.awt.Graphics2D;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Dictionary;
 import java.util.Hashtable;
-import java.util.List;
-
-import javax.imageio.ImageIO;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 
 public class Helper {
 
@@ -52,8 +63,33 @@ public class Helper {
         }
     };
 
+    /**
+     * Shared reader for order JSON. ObjectReaders are immutable and thread-safe, so one is reused for every order
+     */
+    private static final ObjectReader orderReader = new ObjectMapper().readerFor(Order.class);
+
     public static final String rootTargetDirectory = "Output/";
     public static final String rootJSONDirectory = "JSON/";
+    public static final String doneJSONDirectory = rootJSONDirectory + "done/";
+    public static final String ledgerPath = rootTargetDirectory + "orders.ledger";
+    public static final String layoutCacheDirectory = "LayoutCache/";
+    public static final String deadLetterDirectory = "DeadLetter/";
+
+    /**
+     * Order IDs name the order's files and are written to the ledger, so they are limited to characters that are safe in both
+     */
+    private static final Pattern orderIDPattern = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    /**
+     * Encoder for the board images and posters, set once at startup
+     */
+    static volatile PngEncoder outputEncoder = new PngEncoder(PngEncoder.Compression.standard);
+
+    /**
+     * Encoder for previews, which are small and wanted quickly
+     */
+    static final PngEncoder previewEncoder = new PngEncoder(PngEncoder.Compression.fast);
+
     /**
      * Gets the scrabble score for a provided letter
      * @param l Letter A-Z
@@ -64,143 +100,298 @@ public class Helper {
     }
 
     /**
-     * Calculates the starting dimensions of the grid used for the tiles
-     * @param words List of input words
-     * @return boards length/width
+     * Loads and parses a given JSON order
+     * @param dir Path directory
+     * @return Parsed order object
+     * @throws IOException if the file cannot be read or is not a valid order
      */
-    public static int CalculateSize(List<String> words) {
-
-        int letterTotal = 0;
-        for (String word : words) {
-            letterTotal += word.length();
+    public static Order ParseOrderJSON(String dir) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return orderReader.readValue(new File(dir));
+        } finally {
+            Metrics.jsonParse.record(start);
         }
-
-        return (int) Math.ceil(Math.sqrt(letterTotal * 10));
     }
 
+
     /**
-     * Loads and parses a given JSON order
-     * @param dir Path directory
+     * Parses an order from JSON that has already been read, e.g. a request body
+     * @param json Order JSON
      * @return Parsed order object
+     * @throws IOException if the JSON is not a valid order
      */
-    public static Order ParseOrderJSON(String dir) {
-        ObjectMapper mapper = new ObjectMapper();
-        Order order;
+    public static Order ParseOrderJSON(byte[] json) throws IOException {
+        long start = System.nanoTime();
         try {
-            order = mapper.readValue(new File(dir), Order.class);
-        } catch (IOException e) {
-            order = new Order();
-            System.err.println("Error Parsing JSON: " + e);
+            return orderReader.readValue(json);
+        } finally {
+            Metrics.jsonParse.record(start);
         }
-
-        return order;
     }
 
+    /**
+     * Streams orders from a newline-delimited JSON file (one order per line), or from every .ndjson/.jsonl file in a directory.
+     * Orders are parsed straight from the file and each is passed to the consumer as soon as it is read, so the batch is never held in memory.
+     * Invalid lines are reported and skipped
+     * @param source NDJSON file or directory of NDJSON files
+     * @param consumer Receives each parsed order
+     * @return Number of orders read
+     * @throws IOException if a file cannot be read
+     */
+    public static int StreamOrders(File source, Consumer<Order> consumer) throws IOException {
+        if (source.isDirectory()) {
+            File[] files = source.listFiles((dir, name) -> name.endsWith(".ndjson") || name.endsWith(".jsonl"));
+            if (files == null) {
+                throw new IOException("Unable to list " + source);
+            }
+            Arrays.sort(files);
+
+            int count = 0;
+            for (File file : files) {
+                count += StreamOrders(file, consumer);
+            }
+            return count;
+        }
+
+        Path path = source.toPath();
+        int count = 0;
+        long offset = 0; // Byte offset the current parser started at, always the start of a line
+        int line = 1;
+
+        while (true) {
+            long recordEnd = 0; // Relative to offset, just after the last order read
+            int recordEndLine = 1;
+            JsonProcessingException error = null;
+
+            try (InputStream in = Files.newInputStream(path)) {
+                in.skipNBytes(offset);
+                MappingIterator<Order> orders = orderReader.readValues(in);
+                while (true) {
+                    long start = System.nanoTime();
+                    if (!orders.hasNextValue()) {
+                        return count;
+                    }
+                    Order order = orders.nextValue();
+                    Metrics.jsonParse.record(start);
+
+                    JsonLocation end = orders.getCurrentLocation();
+                    recordEnd = end.getByteOffset();
+                    recordEndLine = end.getLineNr();
+                    consumer.accept(order);
+                    count++;
+                }
+            } catch (JsonProcessingException e) {
+                error = e;
+            }
+
+            // The tokenizer ignores line breaks, so after a malformed order it may be part way into the next lines. Parsing
+            // restarts on the line after the one the bad order started on, so only that line is lost
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+                offset += recordEnd;
+                line += recordEndLine - 1;
+                in.skipNBytes(offset);
+
+                int next = in.read();
+                if (recordEnd > 0) {
+                    // Rest of the last good order's line
+                    for (; next != -1 && next != '\n'; next = in.read()) {
+                        offset++;
+                    }
+                    offset++;
+                    line++;
+                    next = in.read();
+                }
+                for (; next != -1 && Character.isWhitespace(next); next = in.read()) {
+                    offset++;
+                    if (next == '\n') {
+                        line++;
+                    }
+                }
+
+                System.err.println("Error Parsing JSON at " + source + ":" + line + ": " + error.getOriginalMessage());
+
+                for (; next != -1 && next != '\n'; next = in.read()) {
+                    offset++;
+                }
+                if (next == -1) {
+                    return count;
+                }
+                offset++;
+                line++;
+            }
+        }
+    }
 
     /**
-     * Crops the generated image to remove any blank space around the edge. Useful for placement
+     * Crops the generated image to remove any blank space around the edge. Useful for placement.
+     * Packed ARGB images are scanned in their own data buffer, any other format is read into one int array first
      * @param image Loaded image object
      * @return Subimage with no padding
      */
     public static BufferedImage CropImage(BufferedImage image) {
+        long start = System.nanoTime();
+        final int background = 0xFF000000;
         int width = image.getWidth();
         int height = image.getHeight();
 
-        int top = 0;
-        int left = 0;
-        int right = width - 1;
-        int bottom = height - 1;
+        int[] pixels;
+        int offset;
+        int stride;
+        WritableRaster raster = image.getRaster();
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB
+                && raster.getDataBuffer() instanceof DataBufferInt buffer
+                && raster.getSampleModel() instanceof SinglePixelPackedSampleModel sampleModel) {
+            // Subimages share their parent's buffer, so the origin and row stride come from the raster
+            pixels = buffer.getData();
+            stride = sampleModel.getScanlineStride();
+            offset = buffer.getOffset() - raster.getSampleModelTranslateY() * stride - raster.getSampleModelTranslateX();
+        } else {
+            pixels = image.getRGB(0, 0, width, height, null, 0, width);
+            stride = width;
+            offset = 0;
+        }
 
+        int top = -1;
         topLoop: for (int y = 0; y < height; y++) {
+            int row = offset + y * stride;
             for (int x = 0; x < width; x++) {
-                if (image.getRGB(x, y) != 0xFF000000) {
+                if (pixels[row + x] != background) {
                     top = y;
                     break topLoop;
                 }
             }
         }
 
-        bottomLoop: for (int y = height - 1; y >= 0; y--) {
+        if (top < 0) {
+            Metrics.cropImage.record(start);
+            return image.getSubimage(0, 0, width, height); // Nothing to crop to
+        }
+
+        int bottom = top;
+        bottomLoop: for (int y = height - 1; y > top; y--) {
+            int row = offset + y * stride;
             for (int x = 0; x < width; x++) {
-                if (image.getRGB(x, y) != 0xFF000000) {
+                if (pixels[row + x] != background) {
                     bottom = y;
                     break bottomLoop;
                 }
             }
         }
 
-        leftLoop: for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                if (image.getRGB(x, y) != 0xFF000000) {
+        // Scanning rows rather than columns keeps the reads sequential, each row only checks outside the edges found so far
+        int left = width;
+        int right = -1;
+        for (int y = top; y <= bottom; y++) {
+            int row = offset + y * stride;
+            for (int x = 0; x < left; x++) {
+                if (pixels[row + x] != background) {
                     left = x;
-                    break leftLoop;
+                    break;
                 }
             }
-        }
-
-        rightLoop: for (int x = width - 1; x >= 0; x--) {
-            for (int y = 0; y < height; y++) {
-                if (image.getRGB(x, y) != 0xFF000000) {
+            for (int x = width - 1; x > right; x--) {
+                if (pixels[row + x] != background) {
                     right = x;
-                    break rightLoop;
+                    break;
                 }
             }
         }
 
+        Metrics.cropImage.record(start);
         return image.getSubimage(left, top, right - left + 1, bottom - top + 1);
     }
 
     /**
-     * Generates complete poster using order information and generated board.
+     * Generates complete poster using order information and the laid out board. Tiles are drawn straight onto the poster
+     * at its scale, so the board image does not need to be written first
      *
      * @param order order information
-     * @param score board's score
+     * @param board board with the order's words placed
+     * @throws IOException if the template, tiles or fonts cannot be loaded or the poster cannot be written
+     * @throws FontFormatException if a poster font is not a valid font file
      */
-    public static void GeneratePoster(Order order, int score) {
+    public static void GeneratePoster(Order order, Board board) throws IOException, FontFormatException {
+        long start = System.nanoTime();
         String orderDir = "Output/" + order.getOrderID() + "/";
 
         try {
-            InputStream is = Main.class.getResourceAsStream("/fonts/Pacifico-Regular.ttf");
-            Font customFont = Font.createFont(Font.TRUETYPE_FONT, is).deriveFont(200f);
+            PosterTemplate template = PosterTemplate.getInstance();
 
-            BufferedImage overallImage = ImageIO.read(Main.class.getResource("/letters/background.png"));
-            int xCentre = overallImage.getWidth() / 2;
-            int yCentre = overallImage.getHeight() / 2;
+            BufferedImage overallImage = template.newCanvas();
+            int xCentre = template.getWidth() / 2;
+            int yCentre = template.getHeight() / 2;
 
-            BufferedImage img = ImageIO.read(new File(orderDir + "boardImage.png"));
+            TileAtlas atlas = TileAtlas.getInstance();
+            int gridSize = board.getGridSize();
+            char[] layout = board.getLayout();
 
             Graphics2D g = overallImage.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
 
-            int targetWidth = (int) (overallImage.getWidth() * 0.75f); // Scale to 1/4th the width of the background
-            int targetHeight = (int) ((double) targetWidth / img.getWidth() * img.getHeight()); // Preserve aspect ratio
+            int targetWidth = (int) (template.getWidth() * 0.75f); // Scale to 1/4th the width of the background
+            int targetHeight = targetWidth; // The board is square
 
             int xImagePosition = xCentre - targetWidth / 2;
             int yImagePosition = yCentre - targetHeight / 2;
 
-            g.drawImage(img, xImagePosition, yImagePosition, targetWidth, targetHeight, null);
+            // Tile (i, j) is drawn at x = i, y = j as in Board.export. Each tile spans from its own start to the next tile's,
+            // so the tiles meet without gaps when the board does not divide evenly
+            for (int i = 0; i < gridSize; i++) {
+                int x = xImagePosition + i * targetWidth / gridSize;
+                int nextX = xImagePosition + (i + 1) * targetWidth / gridSize;
+
+                for (int j = 0; j < gridSize; j++) {
+                    char letter = layout[i * gridSize + j];
+                    if (letter == ' ') {
+                        continue;
+                    }
+
+                    BufferedImage tile = atlas.getTile(letter);
+                    if (tile == null) {
+                        throw new IOException("No tile image for letter " + letter);
+                    }
+
+                    int y = yImagePosition + j * targetHeight / gridSize;
+                    int nextY = yImagePosition + (j + 1) * targetHeight / gridSize;
+                    g.drawImage(tile, x, y, nextX - x, nextY - y, null);
+                }
+            }
 
-            g.setFont(customFont);
+            g.setFont(template.getTitleFont());
             g.setColor(Color.BLACK);
 
             String topText = order.getTopText();
-            g.drawString(topText, xCentre - g.getFontMetrics().stringWidth(topText) / 2, 750);
+            g.drawString(topText, xCentre - template.getTitleMetrics().stringWidth(topText) / 2, 750);
 
-            g.setFont(new Font("Arial", Font.BOLD, 120));
-            String wordScoreText = "Word Score: " + score;
+            g.setFont(template.getScoreFont());
+            String wordScoreText = "Word Score: " + board.getScore();
             g.drawString(
                     wordScoreText,
-                    xCentre - g.getFontMetrics().stringWidth(wordScoreText) / 2, overallImage.getHeight() - 750);
+                    xCentre - template.getScoreMetrics().stringWidth(wordScoreText) / 2, template.getHeight() - 750);
 
             g.dispose();
 
-            ImageIO.write(overallImage, "png", new File(orderDir + "poster.png"));
+            Files.createDirectories(Paths.get(orderDir));
+            long writeStart = System.nanoTime();
+            outputEncoder.write(overallImage, new File(orderDir + "poster.png"));
+            Metrics.pngWrite.record(writeStart);
             System.out.println("Overall image successfully created");
 
-        } catch (FontFormatException | IOException e) {
-            //To Do: Handle
+        } finally {
+            Metrics.generatePoster.record(start);
         }
     }
 
+    /**
+     * Checks that an order ID can be used for the order's files and ledger entries
+     * @param orderID Order ID
+     * @return True if the ID is 1-64 letters, digits, '-' or '_'
+     */
+    public static boolean IsValidOrderID(String orderID) {
+        return orderID != null && orderIDPattern.matcher(orderID).matches();
+    }
+
     /**
      * Generates the order directory given an order name. Used to provide consistent paths
      * @param orderID Unique ID of the given order
@@ -0,0 +1,247 @@
+package com.nsweeney.scrabble_generator;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of completed layouts keyed by the order's words, ignoring their order. Recent layouts are kept in an in-memory LRU,
+ * backed by one file per layout on disk that is evicted oldest-used first once the directory grows past its size limit
+ */
+public class LayoutCache {
+
+    /**
+     * A cached layout: the words it was made from, the trimmed board's size and its row-major tiles
+     */
+    private record Layout(List<String> words, int gridSize, char[] tiles) {
+    }
+
+    private final Path directory;
+    private final long maxDiskBytes;
+    private final Map<String, Layout> memory;
+    private long diskBytes;
+
+    /**
+     * Opens the cache, creating its directory if needed
+     *
+     * @param directory Directory holding the cached layouts
+     * @param maxMemoryEntries Layouts kept in memory
+     * @param maxDiskBytes Size the directory is kept under
+     * @throws IOException if the directory cannot be created or read
+     */
+    public LayoutCache(Path directory, int maxMemoryEntries, long maxDiskBytes) throws IOException {
+        this.directory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Layout> eldest) {
+                return size() > maxMemoryEntries;
+            }
+        };
+
+        Files.createDirectories(directory);
+        File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                diskBytes += file.length();
+            }
+        }
+    }
+
+    /**
+     * Builds the cache key for a set of words: the sorted words, so the same words in any order share a layout
+     *
+     * @param words Order words
+     * @return cache key
+     */
+    static String key(List<String> words) {
+        List<String> sorted = new ArrayList<>(words);
+        Collections.sort(sorted);
+        return String.join("\n", sorted);
+    }
+
+    /**
+     * Loads a cached layout for the board's words onto the board
+     *
+     * @param board Board to load the layout onto
+     * @return True if a layout was found; otherwise False
+     */
+    public boolean load(Board board) {
+        String key = key(board.getWords());
+
+        Layout layout;
+        synchronized (memory) {
+            layout = memory.get(key);
+        }
+
+        if (layout == null) {
+            layout = readLayout(key);
+            if (layout == null) {
+                return false;
+            }
+
+            synchronized (memory) {
+                memory.put(key, layout);
+            }
+        } else {
+            touch(file(key));
+        }
+
+        board.loadLayout(layout.gridSize(), layout.tiles());
+        return true;
+    }
+
+    /**
+     * Stores a completed board's layout
+     *
+     * @param board Board whose words have been placed
+     */
+    public void store(Board board) {
+        String key = key(board.getWords());
+        Layout layout = new Layout(List.copyOf(board.getWords()), board.getGridSize(), board.getLayout());
+
+        synchronized (memory) {
+            memory.put(key, layout);
+        }
+
+        try {
+            writeLayout(key, layout);
+        } catch (IOException e) {
+            System.err.println("Error writing cached layout: " + e);
+        }
+    }
+
+    /**
+     * Gets the file for a key. Keys are hashed as the words can be long and contain any characters
+     */
+    private Path file(String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(hash) + ".layout");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Reads a layout from disk. The file holds the board size, the word count, the words and then one line per row
+     *
+     * @param key cache key
+     * @return layout, or null if it is not cached (or the file belongs to different words)
+     */
+    private Layout readLayout(String key) {
+        Path file = file(key);
+
+        try {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            int gridSize = Integer.parseInt(lines.get(0));
+            int wordCount = Integer.parseInt(lines.get(1));
+            List<String> words = lines.subList(2, 2 + wordCount);
+
+            if (!key(words).equals(key)) {
+                return null;
+            }
+
+            char[] tiles = new char[gridSize * gridSize];
+            for (int i = 0; i < gridSize; i++) {
+                lines.get(2 + wordCount + i).getChars(0, gridSize, tiles, i * gridSize);
+            }
+
+            touch(file);
+            return new Layout(List.copyOf(words), gridSize, tiles);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading cached layout " + file + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Marks a layout's file as just used, so eviction removes the least recently used. Hits from memory touch it too,
+     * otherwise the most used layouts would look the oldest on disk
+     *
+     * @param file layout file
+     */
+    private void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException e) {
+            // Evicted from disk while still in memory
+        } catch (IOException e) {
+            System.err.println("Error touching cached layout " + file + ": " + e);
+        }
+    }
+
+    /**
+     * Writes a layout to disk, then evicts the oldest layouts if the directory is over its size limit
+     *
+     * @param key cache key
+     * @param layout layout to write
+     * @throws IOException if the layout cannot be written
+     */
+    private void writeLayout(String key, Layout layout) throws IOException {
+        Path file = file(key);
+        Path temporary = Files.createTempFile(directory, "layout", ".tmp");
+
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            writer.write(layout.gridSize() + "\n" + layout.words().size() + "\n");
+            for (String word : layout.words()) {
+                writer.write(word + "\n");
+            }
+            for (int i = 0; i < layout.gridSize(); i++) {
+                writer.write(layout.tiles(), i * layout.gridSize(), layout.gridSize());
+                writer.write('\n');
+            }
+        }
+
+        // The size being replaced is read under the lock, so concurrent writers of the same layout cannot both count it
+        synchronized (this) {
+            long previousSize = Files.exists(file) ? Files.size(file) : 0;
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            diskBytes += Files.size(file) - previousSize;
+            if (diskBytes > maxDiskBytes) {
+                evict();
+            }
+        }
+    }
+
+    /**
+     * Deletes the least recently used layouts until the directory is back under three quarters of its size limit
+     */
+    private void evict() {
+        File[] files = directory.toFile().listFiles((dir, name) -> name.endsWith(".layout"));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+
+        for (File file : files) {
+            if (diskBytes <= maxDiskBytes * 3 / 4) {
+                break;
+            }
+
+            long size = file.length();
+            if (file.delete()) {
+                diskBytes -= size;
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.nsweeney.scrabble_generator;
+
+import java.util.Arrays;
+
+/**
+ * Index from each letter to the board cells it occupies, so placement only visits tiles that can intersect a word.
+ * Letters outside A-Z share a single bucket and must be checked against the board by the caller.
+ */
+class LetterIndex {
+    private static final int OTHER = 26;
+
+    private final int[][] rows = new int[OTHER + 1][];
+    private final int[][] cols = new int[OTHER + 1][];
+    private final int[] counts = new int[OTHER + 1];
+
+    LetterIndex() {
+        for (int slot = 0; slot <= OTHER; slot++) {
+            rows[slot] = new int[8];
+            cols[slot] = new int[8];
+        }
+    }
+
+    private static int slot(char letter) {
+        return letter >= 'A' && letter <= 'Z' ? letter - 'A' : OTHER;
+    }
+
+    /**
+     * Removes every cell from the index
+     */
+    void clear() {
+        Arrays.fill(counts, 0);
+    }
+
+    /**
+     * Records that the letter now occupies cell (row, col)
+     *
+     * @param letter placed letter
+     * @param row cell row
+     * @param col cell column
+     */
+    void add(char letter, int row, int col) {
+        int slot = slot(letter);
+        int count = counts[slot];
+
+        if (count == rows[slot].length) {
+            rows[slot] = Arrays.copyOf(rows[slot], count * 2);
+            cols[slot] = Arrays.copyOf(cols[slot], count * 2);
+        }
+
+        rows[slot][count] = row;
+        cols[slot][count] = col;
+        counts[slot] = count + 1;
+    }
+
+    /**
+     * Removes the most recently added cell for the letter, used when a placement is undone
+     *
+     * @param letter letter whose last cell is removed
+     */
+    void removeLast(char letter) {
+        counts[slot(letter)]--;
+    }
+
+    /**
+     * Gets the number of indexed cells for the letter's bucket
+     *
+     * @param letter letter to look up
+     * @return number of cells
+     */
+    int size(char letter) {
+        return counts[slot(letter)];
+    }
+
+    int row(char letter, int n) {
+        return rows[slot(letter)][n];
+    }
+
+    int col(char letter, int n) {
+        return cols[slot(letter)][n];
+    }
+}
@@ -1,10 +1,128 @@
 package com.nsweeney.scrabble_generator;
 
+import java.io.File;
+import java.nio.file.Paths;
+
+import com.sun.net.httpserver.HttpServer;
+
 public class Main {
     public static void main(String[] args) throws Exception {
 
         // The processes are called from a cron job, however, this demonstrates the initial implementation
+        // Usage: [--parallelism=N] [--attempts=N] [--solver=shuffle|backtracking] [--optimize=MILLIS] [--watch] [--ingest=NDJSON_FILE_OR_DIRECTORY] [--layout-cache=MB] [--metrics-port=PORT] [--png-compression=fast|standard|max] [--preview=PIXELS] [--format=png|svg] [--serve=PORT] [--max-attempts=N] [--retry-backoff=MILLIS] [--no-board-image]
+
+        int parallelism = 1;
+        int layoutAttempts = 1;
+        String solver = "shuffle";
+        long optimizeMillis = 0;
+        boolean watch = false;
+        String ingestPath = null;
+        long layoutCacheMegabytes = 0;
+        int metricsPort = 0;
+        PngEncoder.Compression pngCompression = PngEncoder.Compression.standard;
+        int previewSize = 0;
+        OrderProcessor.OutputFormat outputFormat = OrderProcessor.OutputFormat.png;
+        int servePort = 0;
+        int maxAttempts = 4;
+        long retryBackoffMillis = 60_000;
+        boolean writeBoardImage = true;
+        for (String arg : args) {
+            if (arg.startsWith("--parallelism=")) {
+                parallelism = Integer.parseInt(arg.substring("--parallelism=".length()));
+            } else if (arg.startsWith("--attempts=")) {
+                layoutAttempts = Integer.parseInt(arg.substring("--attempts=".length()));
+            } else if (arg.startsWith("--solver=")) {
+                solver = arg.substring("--solver=".length());
+            } else if (arg.startsWith("--optimize=")) {
+                optimizeMillis = Long.parseLong(arg.substring("--optimize=".length()));
+            } else if (arg.equals("--watch")) {
+                watch = true;
+            } else if (arg.startsWith("--ingest=")) {
+                ingestPath = arg.substring("--ingest=".length());
+            } else if (arg.startsWith("--layout-cache=")) {
+                layoutCacheMegabytes = Long.parseLong(arg.substring("--layout-cache=".length()));
+            } else if (arg.startsWith("--metrics-port=")) {
+                metricsPort = Integer.parseInt(arg.substring("--metrics-port=".length()));
+            } else if (arg.startsWith("--png-compression=")) {
+                pngCompression = PngEncoder.Compression.valueOf(arg.substring("--png-compression=".length()));
+            } else if (arg.startsWith("--preview=")) {
+                previewSize = Integer.parseInt(arg.substring("--preview=".length()));
+            } else if (arg.startsWith("--format=")) {
+                outputFormat = OrderProcessor.OutputFormat.valueOf(arg.substring("--format=".length()));
+            } else if (arg.startsWith("--serve=")) {
+                servePort = Integer.parseInt(arg.substring("--serve=".length()));
+            } else if (arg.startsWith("--max-attempts=")) {
+                maxAttempts = Integer.parseInt(arg.substring("--max-attempts=".length()));
+            } else if (arg.startsWith("--retry-backoff=")) {
+                retryBackoffMillis = Long.parseLong(arg.substring("--retry-backoff=".length()));
+            } else if (arg.equals("--no-board-image")) {
+                writeBoardImage = false;
+            } else {
+                System.err.println("Unknown argument: " + arg);
+            }
+        }
+
+        PlacementStrategy placementStrategy = solver.equals("backtracking")
+                ? new BacktrackingPlacement()
+                : new ShufflePlacement(layoutAttempts);
+        if (optimizeMillis > 0) {
+            placementStrategy = new CompactLayoutOptimizer(placementStrategy, optimizeMillis);
+        }
+
+        Helper.outputEncoder = new PngEncoder(pngCompression);
+
+        OrderProcessor orderProcessor = new OrderProcessor(parallelism, placementStrategy, false);
+        if (layoutCacheMegabytes > 0) {
+            orderProcessor.setLayoutCache(
+                    new LayoutCache(Paths.get(Helper.layoutCacheDirectory), 1000, layoutCacheMegabytes * 1024 * 1024));
+        }
+        orderProcessor.setPreviewSize(previewSize);
+        orderProcessor.setOutputFormat(outputFormat);
+        orderProcessor.setFailurePolicy(maxAttempts, retryBackoffMillis);
+        orderProcessor.setWriteBoardImage(writeBoardImage);
+
+        // Stage timers and counters are always available over JMX, the text endpoint is opt-in
+        Metrics.registerMBeans();
+        HttpServer metricsServer = metricsPort > 0 ? Metrics.startHttpServer(metricsPort) : null;
+
+        try {
+            if (ingestPath != null) {
+                // Bulk orders are submitted as they are read, the processor limits how many are held at once
+                try {
+                    int count = Helper.StreamOrders(new File(ingestPath), orderProcessor::submit);
+                    System.out.println("Read " + count + " orders from " + ingestPath);
+                } finally {
+                    orderProcessor.shutdown();
+                }
+                return;
+            }
+
+            if (servePort > 0) {
+                // Orders saved by an earlier run but not finished are picked up before accepting new ones
+                orderProcessor.CheckNewOrders();
+                OrderServer orderServer = new OrderServer(orderProcessor, servePort, Math.max(16, parallelism * 4));
+                Runtime.getRuntime().addShutdownHook(new Thread(orderServer::close));
+                Thread.currentThread().join(); // Runs until the process is stopped
+                return;
+            }
+
+            if (watch) {
+                // Runs until the process is stopped, finishing the orders in progress on shutdown
+                OrderWatcher orderWatcher = new OrderWatcher(orderProcessor);
+                Runtime.getRuntime().addShutdownHook(new Thread(orderWatcher::close));
+                orderWatcher.run();
+                return;
+            }
 
-        OrderProcessor orderProcessor = new OrderProcessor();
+            try {
+                orderProcessor.CheckNewOrders();
+            } finally {
+                orderProcessor.shutdown();
+            }
+        } finally {
+            if (metricsServer != null) {
+                metricsServer.stop(0);
+            }
+        }
     }
-}
\ No newline at end of file
+}
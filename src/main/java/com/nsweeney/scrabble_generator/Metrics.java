@@ -0,0 +1,266 @@
+package com.nsweeney.scrabble_generator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Process-wide pipeline metrics: a timer per stage, counters for layout events and gauges such as the order queue depth.
+ * They are exposed as MXBeans and, optionally, as plain text in the Prometheus format on a local port
+ */
+public final class Metrics {
+
+    public static final Timer jsonParse = new Timer("json_parse");
+    public static final Timer placeWords = new Timer("place_words");
+    public static final Timer trimGrid = new Timer("trim_grid");
+    public static final Timer export = new Timer("export");
+    public static final Timer cropImage = new Timer("crop_image");
+    public static final Timer generatePoster = new Timer("generate_poster");
+    public static final Timer pngWrite = new Timer("png_write");
+    public static final Timer preview = new Timer("preview");
+
+    public static final Counter retries = new Counter("layout_retries");
+    public static final Counter rotations = new Counter("word_rotations");
+    public static final Counter failures = new Counter("order_failures");
+    public static final Counter deadLetters = new Counter("dead_letters");
+    public static final Counter rejections = new Counter("order_rejections");
+
+    private static final Timer[] timers = { jsonParse, placeWords, trimGrid, export, cropImage, generatePoster, pngWrite, preview };
+    private static final Counter[] counters = { retries, rotations, failures, deadLetters, rejections };
+    private static final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private static boolean mbeansRegistered;
+
+    private Metrics() {
+    }
+
+    /**
+     * JMX view of a stage timer
+     */
+    public interface TimerMXBean {
+        long getCount();
+
+        double getTotalMillis();
+
+        double getMeanMillis();
+
+        double getMaxMillis();
+    }
+
+    /**
+     * JMX view of a counter
+     */
+    public interface CounterMXBean {
+        long getCount();
+    }
+
+    /**
+     * JMX view of a gauge
+     */
+    public interface GaugeMXBean {
+        long getValue();
+    }
+
+    /**
+     * Records how often a stage runs and how long it takes
+     */
+    public static final class Timer implements TimerMXBean {
+        private final String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private Timer(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Records one run of the stage
+         * @param startNanos System.nanoTime() when the stage started
+         */
+        public void record(long startNanos) {
+            long elapsed = System.nanoTime() - startNanos;
+            count.increment();
+            totalNanos.add(elapsed);
+            maxNanos.accumulateAndGet(elapsed, Math::max);
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+
+        @Override
+        public double getTotalMillis() {
+            return totalNanos.sum() / 1e6;
+        }
+
+        @Override
+        public double getMeanMillis() {
+            long runs = count.sum();
+            return runs == 0 ? 0 : getTotalMillis() / runs;
+        }
+
+        @Override
+        public double getMaxMillis() {
+            return maxNanos.get() / 1e6;
+        }
+    }
+
+    /**
+     * Counts occurrences of an event
+     */
+    public static final class Counter implements CounterMXBean {
+        private final String name;
+        private final LongAdder count = new LongAdder();
+
+        private Counter(String name) {
+            this.name = name;
+        }
+
+        public void increment() {
+            count.increment();
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+    }
+
+    /**
+     * Reads a value each time it is exported. The supplier can be replaced, so the registered MXBean always shows the latest one
+     */
+    public static final class Gauge implements GaugeMXBean {
+        private final String name;
+        private volatile LongSupplier value;
+
+        private Gauge(String name, LongSupplier value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        public long getValue() {
+            return value.getAsLong();
+        }
+    }
+
+    /**
+     * Registers a value that is read each time the metrics are exported, replacing any gauge with the same name
+     * @param name Gauge name
+     * @param value Current value supplier
+     */
+    public static synchronized void registerGauge(String name, LongSupplier value) {
+        Gauge gauge = gauges.get(name);
+        if (gauge != null) {
+            gauge.value = value;
+            return;
+        }
+
+        gauge = new Gauge(name, value);
+        gauges.put(name, gauge);
+        if (mbeansRegistered) {
+            try {
+                registerMBean(ManagementFactory.getPlatformMBeanServer(), "Gauge", name, gauge);
+            } catch (JMException e) {
+                System.err.println("Error registering metrics MBeans: " + e);
+            }
+        }
+    }
+
+    /**
+     * Registers the timers, counters and gauges with the platform MBean server under com.nsweeney.scrabble_generator.
+     * Gauges registered later are added as they are registered
+     */
+    public static synchronized void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        mbeansRegistered = true;
+
+        try {
+            for (Timer timer : timers) {
+                registerMBean(server, "Timer", timer.name, timer);
+            }
+            for (Counter counter : counters) {
+                registerMBean(server, "Counter", counter.name, counter);
+            }
+            for (Gauge gauge : gauges.values()) {
+                registerMBean(server, "Gauge", gauge.name, gauge);
+            }
+        } catch (JMException e) {
+            System.err.println("Error registering metrics MBeans: " + e);
+        }
+    }
+
+    private static void registerMBean(MBeanServer server, String type, String name, Object mbean) throws JMException {
+        ObjectName objectName = new ObjectName("com.nsweeney.scrabble_generator:type=" + type + ",name=" + name);
+        if (!server.isRegistered(objectName)) {
+            server.registerMBean(mbean, objectName);
+        }
+    }
+
+    /**
+     * Serves the metrics as text at http://127.0.0.1:port/metrics
+     * @param port Local port to listen on
+     * @return Started server, stopped by the caller
+     * @throws IOException if the port cannot be bound
+     */
+    public static HttpServer startHttpServer(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> {
+            byte[] body = render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        return server;
+    }
+
+    /**
+     * Renders every metric in the Prometheus text format
+     * @return metrics text
+     */
+    public static String render() {
+        StringBuilder text = new StringBuilder();
+
+        text.append("# TYPE scrabble_stage_seconds summary\n");
+        for (Timer timer : timers) {
+            text.append("scrabble_stage_seconds_count{stage=\"").append(timer.name).append("\"} ").append(timer.getCount()).append('\n');
+            text.append("scrabble_stage_seconds_sum{stage=\"").append(timer.name).append("\"} ").append(timer.getTotalMillis() / 1000).append('\n');
+        }
+
+        text.append("# TYPE scrabble_stage_max_seconds gauge\n");
+        for (Timer timer : timers) {
+            text.append("scrabble_stage_max_seconds{stage=\"").append(timer.name).append("\"} ").append(timer.getMaxMillis() / 1000).append('\n');
+        }
+
+        for (Counter counter : counters) {
+            text.append("# TYPE scrabble_").append(counter.name).append("_total counter\n");
+            text.append("scrabble_").append(counter.name).append("_total ").append(counter.getCount()).append('\n');
+        }
+
+        for (Gauge gauge : gauges.values()) {
+            text.append("# TYPE scrabble_").append(gauge.name).append(" gauge\n");
+            text.append("scrabble_").append(gauge.name).append(' ').append(gauge.getValue()).append('\n');
+        }
+
+        return text.toString();
+    }
+}
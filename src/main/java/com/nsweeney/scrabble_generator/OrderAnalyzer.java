@@ -0,0 +1,143 @@
+package com.nsweeney.scrabble_generator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+
+/**
+ * Checks an order's words before they are laid out. Words are normalised to upper case tiles, and orders that can never be laid out
+ * are rejected straight away instead of after the placement strategy has used all its retries. Repeated words and words inside another
+ * word, such as single letters, are dropped as they are laid out along with the word containing them and never add a tile of their own.
+ * A word can only join the board by crossing a word already on it at a shared letter, so the graph linking words that share a letter
+ * must be connected. Connected orders can still be impossible, those are left to the placement strategy
+ */
+public final class OrderAnalyzer {
+
+    /**
+     * Result of analysing an order's words
+     *
+     * @param words Normalised words to place, starting word first and each later word sharing a letter with an earlier one
+     * @param rejection Reason the order can never be laid out, or null if it can be attempted
+     */
+    public record Analysis(List<String> words, String rejection) {
+
+        /**
+         * @return True if the order can never be laid out
+         */
+        public boolean isRejected() {
+            return rejection != null;
+        }
+    }
+
+    private OrderAnalyzer() {
+    }
+
+    /**
+     * Normalises and checks an order's words, and orders them for the placement strategy
+     *
+     * @param words Order's words as given
+     * @return analysis with the words to lay out, or the reason the order is rejected
+     */
+    public static Analysis analyze(List<String> words) {
+        if (words == null || words.isEmpty()) {
+            return rejected("Order has no words");
+        }
+
+        List<String> normalised = new ArrayList<>(words.size());
+        for (String word : words) {
+            if (word == null || word.isBlank()) {
+                return rejected("Order contains a blank word");
+            }
+
+            String tiles = word.strip().toUpperCase(Locale.ROOT);
+            for (int c = 0; c < tiles.length(); c++) {
+                char letter = tiles.charAt(c);
+                if (letter < 'A' || letter > 'Z') {
+                    return rejected("Word \"" + word.strip() + "\" contains '" + letter + "', which has no tile");
+                }
+            }
+            normalised.add(tiles);
+        }
+
+        List<String> distinct = List.copyOf(new LinkedHashSet<>(normalised));
+        normalised.clear();
+        for (String word : distinct) {
+            if (distinct.stream().noneMatch(other -> !other.equals(word) && other.contains(word))) {
+                normalised.add(word);
+            }
+        }
+
+        int count = normalised.size();
+        int[] letters = new int[count]; // Letters A-Z in each word as a bitmask, two words overlap when their masks share a bit
+        for (int w = 0; w < count; w++) {
+            String word = normalised.get(w);
+            for (int c = 0; c < word.length(); c++) {
+                letters[w] |= 1 << (word.charAt(c) - 'A');
+            }
+        }
+
+        int[] overlaps = new int[count];
+        for (int a = 0; a < count; a++) {
+            for (int b = a + 1; b < count; b++) {
+                if ((letters[a] & letters[b]) != 0) {
+                    overlaps[a]++;
+                    overlaps[b]++;
+                }
+            }
+        }
+
+        // Most overlapping words first, longer words break ties as they give the next words more letters to cross
+        Comparator<Integer> preference = Comparator.comparingInt((Integer w) -> -overlaps[w])
+                .thenComparingInt(w -> -normalised.get(w).length())
+                .thenComparingInt(w -> w);
+
+        int start = 0;
+        for (int w = 1; w < count; w++) {
+            if (preference.compare(w, start) < 0) {
+                start = w;
+            }
+        }
+
+        // Breadth first from the starting word, so every word overlaps at least one word before it
+        List<String> ordered = new ArrayList<>(count);
+        boolean[] visited = new boolean[count];
+        Queue<Integer> queue = new ArrayDeque<>();
+        visited[start] = true;
+        queue.add(start);
+
+        while (!queue.isEmpty()) {
+            int current = queue.remove();
+            ordered.add(normalised.get(current));
+
+            List<Integer> neighbours = new ArrayList<>();
+            for (int w = 0; w < count; w++) {
+                if (!visited[w] && (letters[current] & letters[w]) != 0) {
+                    visited[w] = true;
+                    neighbours.add(w);
+                }
+            }
+            neighbours.sort(preference);
+            queue.addAll(neighbours);
+        }
+
+        if (ordered.size() < count) {
+            List<String> unreachable = new ArrayList<>();
+            for (int w = 0; w < count; w++) {
+                if (!visited[w]) {
+                    unreachable.add(normalised.get(w));
+                }
+            }
+            return rejected("Words " + unreachable + " share no letters with " + ordered);
+        }
+
+        return new Analysis(ordered, null);
+    }
+
+    private static Analysis rejected(String reason) {
+        return new Analysis(List.of(), reason);
+    }
+}
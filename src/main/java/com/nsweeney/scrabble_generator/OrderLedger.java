@@ -0,0 +1,216 @@
+package com.nsweeney.scrabble_generator;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only record of each order's state, so pending orders can be found without listing every completed order's directory.
+ * Each line is "state\torderID", followed by "\tattempts\tretryAt\treason" once the order has failed; the latest line for an order wins.
+ * The file is replayed into memory when opened
+ */
+public class OrderLedger implements AutoCloseable {
+
+    /**
+     * Order state constants defined as enumerations
+     */
+    public enum State {
+        pending,
+        done,
+        failed,
+        deadLettered;
+    }
+
+    /**
+     * Failure history of an order that has not been completed
+     * @param attempts Failed attempts so far
+     * @param retryAt Time (epoch millis) before which the order is not retried
+     * @param reason Reason the latest attempt failed
+     */
+    public record Failure(int attempts, long retryAt, String reason) {
+    }
+
+    private final Path path;
+    private final Map<String, State> states = new ConcurrentHashMap<>();
+    private final Map<String, Failure> failures = new ConcurrentHashMap<>();
+    private final BufferedWriter writer;
+
+    /**
+     * Opens the ledger, replaying its existing entries. A missing ledger is created from the existing output directories
+     * @param path Ledger file path
+     * @throws IOException if the ledger cannot be read or written
+     */
+    public OrderLedger(Path path) throws IOException {
+        this.path = path;
+
+        if (Files.exists(path)) {
+            int lines = replay();
+            // Rewrite the ledger once most of its lines are superseded entries
+            if (lines > 1024 && lines > states.size() * 2) {
+                compact();
+            }
+        } else {
+            bootstrap();
+        }
+
+        writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Reads every complete line of the ledger into memory. A partial last line left by a crash is cut off so later appends start on a new line
+     * @return number of entries read
+     * @throws IOException if the ledger cannot be read
+     */
+    private int replay() throws IOException {
+        byte[] content = Files.readAllBytes(path);
+        int lineStart = 0;
+        int lines = 0;
+
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] != '\n') {
+                continue;
+            }
+
+            String line = new String(content, lineStart, i - lineStart, StandardCharsets.UTF_8);
+            lineStart = i + 1;
+
+            String[] fields = line.split("\t", 5);
+            if (fields.length < 2 || fields[0].isEmpty()) {
+                continue;
+            }
+            try {
+                // Every field is parsed before the entry is applied, so an invalid entry changes nothing
+                State state = State.valueOf(fields[0]);
+                Failure failure = fields.length == 5
+                        ? new Failure(Integer.parseInt(fields[2]), Long.parseLong(fields[3]), fields[4]) : null;
+
+                states.put(fields[1], state);
+                if (failure != null) {
+                    failures.put(fields[1], failure);
+                } else if (state == State.done) {
+                    failures.remove(fields[1]);
+                }
+                lines++;
+            } catch (IllegalArgumentException e) {
+                System.err.println("Skipping invalid ledger entry: " + line);
+            }
+        }
+
+        if (lineStart < content.length) {
+            System.err.println("Discarding incomplete ledger entry at the end of " + path);
+            try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+                file.setLength(lineStart);
+            }
+        }
+
+        return lines;
+    }
+
+    /**
+     * Creates the ledger for an existing output directory, where each order directory is a completed order
+     * @throws IOException if the ledger cannot be written
+     */
+    private void bootstrap() throws IOException {
+        File[] completedOrders = path.toAbsolutePath().getParent().toFile().listFiles(File::isDirectory);
+        if (completedOrders != null) {
+            for (File completedOrder : completedOrders) {
+                states.put(completedOrder.getName(), State.done);
+            }
+        }
+
+        compact();
+    }
+
+    /**
+     * Rewrites the ledger with one line per order. The new file replaces the old one atomically so a crash leaves one or the other
+     * @throws IOException if the ledger cannot be written
+     */
+    private void compact() throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (BufferedWriter compacted = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, State> entry : states.entrySet()) {
+                compacted.write(entry(entry.getKey(), entry.getValue(), failures.get(entry.getKey())));
+            }
+        }
+
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Formats a ledger line
+     */
+    private static String entry(String orderID, State state, Failure failure) {
+        if (failure == null) {
+            return state + "\t" + orderID + "\n";
+        }
+
+        // The reason is the last field, so it only has to be kept on one line
+        String reason = failure.reason() == null ? "" : failure.reason().replaceAll("[\t\r\n]+", " ");
+        return state + "\t" + orderID + "\t" + failure.attempts() + "\t" + failure.retryAt() + "\t" + reason + "\n";
+    }
+
+    /**
+     * Records a new state for an order. A completed order's failure history is cleared, any other state keeps it
+     * @param orderID ID of the order
+     * @param state New state
+     */
+    public synchronized void record(String orderID, State state) {
+        if (state == State.done) {
+            failures.remove(orderID);
+        }
+        write(orderID, state);
+    }
+
+    /**
+     * Records a failed attempt for an order
+     * @param orderID ID of the order
+     * @param state New state, failed or deadLettered
+     * @param failure Failure history including this attempt
+     */
+    public synchronized void recordFailure(String orderID, State state, Failure failure) {
+        failures.put(orderID, failure);
+        write(orderID, state);
+    }
+
+    private void write(String orderID, State state) {
+        states.put(orderID, state);
+        try {
+            writer.write(entry(orderID, state, failures.get(orderID)));
+            writer.flush();
+        } catch (IOException e) {
+            System.err.println("Error writing ledger entry for " + orderID + ": " + e);
+        }
+    }
+
+    /**
+     * Gets the latest state of an order
+     * @param orderID ID of the order
+     * @return Order state, or null if the order has not been seen
+     */
+    public State getState(String orderID) {
+        return states.get(orderID);
+    }
+
+    /**
+     * Gets the failure history of an order
+     * @param orderID ID of the order
+     * @return Failure history, or null if the order has not failed since it was last completed
+     */
+    public Failure getFailure(String orderID) {
+        return failures.get(orderID);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
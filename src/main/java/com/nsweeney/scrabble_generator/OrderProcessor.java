@@ -1,76 +1,642 @@
 package com.nsweeney.scrabble_generator;
 
+import java.awt.FontFormatException;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 public class OrderProcessor {
 
+    /**
+     * Output format constants defined as enumerations
+     */
+    public enum OutputFormat {
+        png,
+        svg;
+    }
+
+    /**
+     * Longest wait between attempts at a failing order
+     */
+    private static final long maxRetryBackoffMillis = 24 * 60 * 60 * 1000L;
+    private static final ObjectWriter orderWriter = new ObjectMapper().writerFor(Order.class);
+
     Queue<String> orderIDQueue;
-    Map<Order, Boolean> ordersProcessed;
+    private final Set<String> queuedOrderIDs = ConcurrentHashMap.newKeySet();
+    private final Set<String> activeOrderIDs = ConcurrentHashMap.newKeySet();
+    private final PlacementStrategy placementStrategy;
+    private final ExecutorService ioExecutor;
+    private final ExecutorService computeExecutor;
+    private final ExecutorService renderExecutor;
+    private final ScheduledExecutorService retryScheduler;
+    private volatile boolean shuttingDown;
+    private final Semaphore inFlight;
+    private final OrderLedger ledger;
+    private LayoutCache layoutCache;
+    private int previewSize;
+    private OutputFormat outputFormat = OutputFormat.png;
+    private boolean writeBoardImage = true;
+    private int maxAttempts = 4;
+    private long retryBackoffMillis = 60_000;
 
+    /**
+     * Creates an order processor that processes the pending orders one at a time
+     */
     public OrderProcessor(){
+        this(1, new ShufflePlacement(1));
+    }
+
+    /**
+     * Creates an order processor that processes the pending orders, up to the given number at once, and then shuts down
+     * @param parallelism Maximum number of orders laid out and rendered concurrently (1 processes sequentially)
+     * @param placementStrategy Strategy used to lay out each order's words
+     */
+    public OrderProcessor(int parallelism, PlacementStrategy placementStrategy){
+        this(parallelism, placementStrategy, true);
+    }
+
+    /**
+     * Creates an order processor that processes up to the given number of orders at once
+     * @param parallelism Maximum number of orders laid out and rendered concurrently (1 processes sequentially)
+     * @param placementStrategy Strategy used to lay out each order's words
+     * @param runOnce Process the pending orders straight away and shut down (cron mode); otherwise orders are submitted until shutdown() is called
+     */
+    public OrderProcessor(int parallelism, PlacementStrategy placementStrategy, boolean runOnce){
+        parallelism = Math.max(1, parallelism);
+        this.placementStrategy = placementStrategy;
         orderIDQueue = new LinkedList<>();
-        ordersProcessed = new HashMap<Order, Boolean>();
-        CheckNewOrders();
+
+        try {
+            Files.createDirectories(Paths.get(Helper.rootTargetDirectory));
+            ledger = new OrderLedger(Paths.get(Helper.ledgerPath));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open order ledger at " + Helper.ledgerPath, e);
+        }
+
+        // Parsing is I/O bound so it gets its own pool, layout and rendering are limited to the parallelism.
+        // The semaphore bounds how many parsed orders can wait for a compute thread at once
+        ioExecutor = Executors.newFixedThreadPool(parallelism);
+        computeExecutor = Executors.newFixedThreadPool(parallelism);
+        // Full-size renders after a preview run on low priority threads so they give way to the next order's layout and preview.
+        // Their orders have left the semaphore, so the queue is bounded instead: once it is full the compute thread renders
+        // the order itself, which holds back the next layouts. The pool is only shut down after the compute pool has stopped,
+        // so no render is rejected
+        renderExecutor = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(parallelism * 2), task -> {
+            Thread thread = Executors.defaultThreadFactory().newThread(task);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        // Retries of failed orders wait here until their backoff ends, they are dropped on shutdown and found again through the ledger
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = Executors.defaultThreadFactory().newThread(task);
+            thread.setDaemon(true);
+            return thread;
+        });
+        inFlight = new Semaphore(parallelism * 2);
+        Metrics.registerGauge("queue_depth", queuedOrderIDs::size);
+
+        if (runOnce) {
+            try {
+                CheckNewOrders();
+            } finally {
+                shutdown();
+            }
+        }
+    }
+
+    /**
+     * Sets a cache of completed layouts. Orders whose words have been laid out before reuse the cached layout instead of running the placement strategy
+     * @param layoutCache Layout cache, or null to always run the placement strategy
+     */
+    public void setLayoutCache(LayoutCache layoutCache) {
+        this.layoutCache = layoutCache;
+    }
+
+    /**
+     * Enables previews. Each order then writes a small preview.png as soon as it is laid out, and its full-size board image
+     * and poster are rendered afterwards at a lower priority. The order is only done once the full-size render finishes
+     * @param previewSize Largest preview width (and height) in pixels, or 0 to render only at full size
+     */
+    public void setPreviewSize(int previewSize) {
+        this.previewSize = previewSize;
+    }
+
+    /**
+     * Sets the format of the board image and poster. SVG output references one embedded image per letter for every tile,
+     * so its size and render time depend on the number of tiles rather than the board's pixel area
+     * @param outputFormat Output format
+     */
+    public void setOutputFormat(OutputFormat outputFormat) {
+        this.outputFormat = outputFormat;
+    }
+
+    /**
+     * Sets whether the board image is written alongside the poster. The poster is drawn from the layout either way
+     * @param writeBoardImage True to write boardImage.png (or .svg); otherwise only the poster is written
+     */
+    public void setWriteBoardImage(boolean writeBoardImage) {
+        this.writeBoardImage = writeBoardImage;
+    }
+
+    /**
+     * Sets how failed orders are retried. The wait before each retry doubles, and retries use a stronger placement search than the
+     * first attempt. An order that fails every attempt is moved to the dead-letter directory and not attempted again
+     * @param maxAttempts Attempts before an order is dead-lettered
+     * @param retryBackoffMillis Wait after the first failure
+     */
+    public void setFailurePolicy(int maxAttempts, long retryBackoffMillis) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = Math.max(0, retryBackoffMillis);
+    }
+
+    /**
+     * Checks for new orders by looking up each file in the JSON directory in the order ledger. Orders that are due
+     * (new, failed with their backoff over, or left pending by a crash) are queued and processed
+     */
+    void CheckNewOrders(){
+        orderIDQueue.addAll(listDueOrders());
+
+        if (!orderIDQueue.isEmpty()) {
+            processOrders();
+        }
+    }
+
+    /**
+     * Submits each due order in the JSON directory without waiting for them to finish, e.g. after the watcher missed file events.
+     * Blocks only while too many orders are already waiting
+     */
+    void submitDueOrders() {
+        for (String orderID : listDueOrders()) {
+            submit(orderID);
+        }
     }
 
     /**
-     * Checks for new orders by comparing the current output directories with the contents of the JSON directory
+     * Lists the orders in the JSON directory that are due and not already queued. Done orders are moved out of the directory
+     * as they finish, so this only sees new and unfinished orders. Any done order still there, e.g. from before a crash, is moved now
+     * @return IDs of the due orders
      */
-    private void CheckNewOrders(){
-        File outputFolder = new File(Helper.rootTargetDirectory);
+    private List<String> listDueOrders() {
+        List<String> due = new ArrayList<>();
         File JSONFolder = new File(Helper.rootJSONDirectory);
 
         if (!JSONFolder.exists() || !JSONFolder.isDirectory()) {
             System.out.println("No JSON directory is found at " + Helper.rootJSONDirectory);
-            return;
+            return due;
+        }
+
+        try (DirectoryStream<Path> orders = Files.newDirectoryStream(JSONFolder.toPath(), "*.json")) {
+            for (Path orderJSON : orders) {
+                String orderID = orderJSON.getFileName().toString().replace(".json","");
+                if (isCompleted(orderID) && !queuedOrderIDs.contains(orderID)) {
+                    archive(orderID);
+                } else if (isDue(orderID) && !queuedOrderIDs.contains(orderID)) {
+                    due.add(orderID);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error listing JSON directory: " + e);
+        }
+
+        return due;
+    }
+
+    /**
+     * Checks the ledger for whether an order has already been completed
+     * @param orderID ID of the order
+     * @return True if the order's poster has been generated
+     */
+    boolean isCompleted(String orderID) {
+        return ledger.getState(orderID) == OrderLedger.State.done;
+    }
+
+    /**
+     * Checks the ledger for whether an order should be attempted now
+     * @param orderID ID of the order
+     * @return True if the order is neither done nor dead-lettered, and is not waiting out a backoff after failing
+     */
+    boolean isDue(String orderID) {
+        OrderLedger.State state = ledger.getState(orderID);
+        if (state == OrderLedger.State.done || state == OrderLedger.State.deadLettered) {
+            return false;
+        }
+
+        OrderLedger.Failure failure = ledger.getFailure(orderID);
+        return failure == null || failure.retryAt() <= System.currentTimeMillis();
+    }
+
+    /**
+     * Gets the latest state of an order from the ledger
+     * @param orderID ID of the order
+     * @return Order state, or null if the order has not been seen
+     */
+    OrderLedger.State getState(String orderID) {
+        return ledger.getState(orderID);
+    }
+
+    /**
+     * @return format the board images and posters are written in
+     */
+    OutputFormat getOutputFormat() {
+        return outputFormat;
+    }
+
+    /**
+     * Process each order that is in the queue and generate a complete poster, waiting until they are all finished
+     */
+    private void processOrders(){
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+
+        while (!orderIDQueue.isEmpty()) {
+            pending.add(submit(orderIDQueue.remove()));
+        }
+
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    /**
+     * Queues an order to be parsed, laid out and rendered. Files whose name is not a valid order ID are skipped. Blocks while too many orders are already waiting
+     * @param orderID ID of the order's JSON file in the JSON directory
+     * @return Future completed when the order has been processed (successfully or not)
+     */
+    CompletableFuture<Void> submit(String orderID) {
+        if (!Helper.IsValidOrderID(orderID)) {
+            System.err.println("Skipping " + Helper.rootJSONDirectory + orderID + ".json, order IDs may only contain 1-64 letters, digits, '-' and '_'"
+                    + " in the file name");
+            return CompletableFuture.completedFuture(null);
         }
+        return submit(orderID, () -> CompletableFuture.supplyAsync(() -> {
+            try {
+                return Helper.ParseOrderJSON(Helper.rootJSONDirectory + orderID + ".json");
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error parsing JSON: " + e.getMessage(), e);
+            }
+        }, ioExecutor));
+    }
 
-        if (!outputFolder.exists() || !outputFolder.isDirectory()) {
-            System.out.println("No target directory is found at " + Helper.rootTargetDirectory);
+    /**
+     * Queues an already parsed order, e.g. from a bulk NDJSON file. Orders that are not due, or whose ID cannot name a file, are skipped.
+     * Blocks while too many orders are already waiting
+     * @param order Parsed order
+     * @return Future completed when the order has been processed (successfully or not)
+     */
+    CompletableFuture<Void> submit(Order order) {
+        if (order.getOrderID() == null || order.getOrderID().isBlank()) {
+            System.err.println("Skipping order without an orderID");
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!Helper.IsValidOrderID(order.getOrderID())) {
+            System.err.println("Skipping order with invalid orderID \"" + order.getOrderID()
+                    + "\", IDs may only contain 1-64 letters, digits, '-' and '_'");
+            return CompletableFuture.completedFuture(null);
+        }
+        return submit(order.getOrderID(), () -> CompletableFuture.completedFuture(order));
+    }
+
+    /**
+     * Queues an order for parsing, layout and rendering
+     * @param orderID ID used for the ledger
+     * @param parser Starts parsing the order once there is room for it
+     * @return Future completed when the order has been processed (successfully or not)
+     */
+    private CompletableFuture<Void> submit(String orderID, Supplier<CompletableFuture<Order>> parser) {
+        if (!isDue(orderID)) {
+            return CompletableFuture.completedFuture(null); // Done, dead-lettered or backing off
+        }
+        if (!queuedOrderIDs.add(orderID)) {
+            return CompletableFuture.completedFuture(null); // Already waiting or being processed
+        }
+
+        inFlight.acquireUninterruptibly();
+        ledger.record(orderID, OrderLedger.State.pending);
+
+        // The semaphore slot is freed once the order is laid out, but the order stays queued until any deferred render finishes
+        AtomicReference<Order> parsed = new AtomicReference<>();
+        return parser.get()
+                .thenApplyAsync(order -> {
+                    parsed.set(order);
+                    return processOrder(orderID, order);
+                }, computeExecutor)
+                .handle((render, e) -> {
+                    inFlight.release();
+                    if (e != null) {
+                        return CompletableFuture.<Void>failedFuture(e);
+                    }
+                    return render;
+                })
+                .thenCompose(render -> render)
+                .handle((result, e) -> {
+                    queuedOrderIDs.remove(orderID);
+                    if (e != null) {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        recordFailure(orderID, parsed.get(), cause.getMessage() != null ? cause.getMessage() : cause.toString());
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * Records a failed attempt at an order. The order is retried once its backoff is over, which doubles with each failure,
+     * and is dead-lettered once it has used all its attempts
+     * @param orderID ID of the order
+     * @param order Parsed order, or null if it was not parsed
+     * @param reason Reason the attempt failed
+     */
+    private void recordFailure(String orderID, Order order, String reason) {
+        Metrics.failures.increment();
+
+        OrderLedger.Failure previous = ledger.getFailure(orderID);
+        int attempts = previous == null ? 1 : previous.attempts() + 1;
+        if (attempts >= maxAttempts) {
+            System.err.println("Order " + orderID + " failed " + attempts + " times, moving it to " + Helper.deadLetterDirectory + ": " + reason);
+            deadLetter(orderID, order, attempts, reason);
             return;
         }
 
-        File[] completedOrders = outputFolder.listFiles(File::isDirectory);
-        File[] orders = JSONFolder.listFiles();
+        long backoff = retryBackoffMillis;
+        for (int n = 1; n < attempts && backoff < maxRetryBackoffMillis; n++) {
+            backoff *= 2;
+        }
+        backoff = Math.min(backoff, maxRetryBackoffMillis);
 
-        Set<String> completedOrderIDs = new HashSet<>();
+        System.err.println("Order " + orderID + " failed (attempt " + attempts + " of " + maxAttempts + "), retrying in "
+                + backoff / 1000 + "s: " + reason);
+        ledger.recordFailure(orderID, OrderLedger.State.failed,
+                new OrderLedger.Failure(attempts, System.currentTimeMillis() + backoff, reason));
 
-        for (File completedOrder : completedOrders) {
-            completedOrderIDs.add(completedOrder.getName());
+        // Only orders with a JSON file can be read again, bulk orders are retried when their file is ingested again
+        if (!shuttingDown && Files.exists(Paths.get(Helper.rootJSONDirectory, orderID + ".json"))) {
+            try {
+                retryScheduler.schedule(() -> {
+                    if (!shuttingDown) {
+                        submit(orderID);
+                    }
+                }, backoff, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Shutting down, the ledger keeps the retry time for the next run
+            }
         }
+    }
 
-        if (orders != null) {
-            for (File orderJSON : orders) {
-                String orderID = orderJSON.getName().replace(".json","");
-                if (!completedOrderIDs.contains(orderID) && !orderIDQueue.contains(orderID)) {
-                    orderIDQueue.add(orderID);
-                }
+    /**
+     * Dead-letters an order the analyzer has found can never be laid out, without spending its retries on it
+     * @param orderID ID of the order
+     * @param order Parsed order
+     * @param reason Reason the order was rejected
+     */
+    private void rejectOrder(String orderID, Order order, String reason) {
+        System.err.println("Rejecting order " + orderID + ", moving it to " + Helper.deadLetterDirectory + ": " + reason);
+        Metrics.failures.increment();
+        Metrics.rejections.increment();
+
+        OrderLedger.Failure previous = ledger.getFailure(orderID);
+        deadLetter(orderID, order, previous == null ? 1 : previous.attempts() + 1, reason);
+    }
+
+    /**
+     * Marks an order as dead-lettered in the ledger and moves it to the dead-letter directory, next to a note of why it failed
+     * @param orderID ID of the order
+     * @param order Parsed order, written out if the order has no JSON file
+     * @param attempts Failed attempts
+     * @param reason Reason the last attempt failed
+     */
+    private void deadLetter(String orderID, Order order, int attempts, String reason) {
+        ledger.recordFailure(orderID, OrderLedger.State.deadLettered, new OrderLedger.Failure(attempts, 0, reason));
+        Metrics.deadLetters.increment();
+
+        try {
+            Path deadLetters = Files.createDirectories(Paths.get(Helper.deadLetterDirectory));
+            Path orderJSON = Paths.get(Helper.rootJSONDirectory, orderID + ".json");
+
+            if (Files.exists(orderJSON)) {
+                Files.move(orderJSON, deadLetters.resolve(orderID + ".json"), StandardCopyOption.REPLACE_EXISTING);
+            } else if (order != null) {
+                Files.write(deadLetters.resolve(orderID + ".json"), orderWriter.writeValueAsBytes(order));
             }
+            Files.writeString(deadLetters.resolve(orderID + ".txt"), "Failed attempts: " + attempts + "\nReason: " + reason + "\n");
+        } catch (IOException e) {
+            System.err.println("Error moving order " + orderID + " to " + Helper.deadLetterDirectory + ": " + e);
         }
+    }
 
-        if (!orderIDQueue.isEmpty()) {
-            processOrders();
+    /**
+     * Stops accepting orders and waits for the orders already submitted to finish
+     */
+    void shutdown() {
+        shuttingDown = true;
+        retryScheduler.shutdownNow();
+        try {
+            retryScheduler.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        ioExecutor.shutdown();
+        try {
+            ioExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Parsed orders are handed to the compute pool by the I/O threads, so it can only stop once they have
+        computeExecutor.shutdown();
+        try {
+            computeExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        renderExecutor.shutdown();
+        try {
+            renderExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            ledger.close();
+        } catch (IOException e) {
+            System.err.println("Error closing order ledger: " + e);
         }
     }
 
     /**
-     * Process each order that is in the queue and generate a complete poster
+     * Gets how much larger an order's next search is than its first, four times larger for each earlier failure
+     * @param failedAttempts Attempts that have already failed
+     * @return search size multiplier
      */
-    private void processOrders(){
-        while (!orderIDQueue.isEmpty()) {
-            String currentOrderID = orderIDQueue.remove();
-            Order currentOrder = Helper.ParseOrderJSON(Helper.rootJSONDirectory + currentOrderID + ".json");
+    private static int escalation(int failedAttempts) {
+        return 1 << (2 * Math.min(failedAttempts, 5));
+    }
+
+    /**
+     * Gets the placement strategy for an order's next attempt. A retry first runs the configured strategy again, on a board with
+     * a new seed and more shuffles, and then falls back to the backtracking search, which finds a layout whenever one exists within
+     * its node budget
+     * @param failedAttempts Attempts that have already failed
+     * @return Placement strategy
+     */
+    private PlacementStrategy strategyFor(int failedAttempts) {
+        if (failedAttempts == 0) {
+            return placementStrategy;
+        }
+
+        long maxNodes = (long) BacktrackingPlacement.defaultMaxNodes * escalation(failedAttempts);
+        PlacementStrategy backtracking = new BacktrackingPlacement((int) Math.min(Integer.MAX_VALUE, maxNodes));
+        if (placementStrategy instanceof BacktrackingPlacement) {
+            return backtracking;
+        }
+
+        return board -> placementStrategy.placeWords(board) || backtracking.placeWords(board);
+    }
+
+    /**
+     * Lays out, renders and generates the poster for a single parsed order. With previews enabled only the preview is
+     * written here, and the full-size render is queued
+     * @param orderID ID of the order from its JSON file name
+     * @param currentOrder Parsed order
+     * @return Future completed once the full-size render has finished
+     * @throws IllegalStateException if the order cannot be processed, with the reason recorded in the ledger
+     */
+    private CompletableFuture<Void> processOrder(String orderID, Order currentOrder) {
+        if (currentOrder.getWords() == null || currentOrder.getWords().isEmpty()) {
+            throw new IllegalStateException("Order has no words"); // Possibly a file that was still being written, so it is retried
+        }
+        // The order's ID names its output directory, so it must not be able to point outside the output directory
+        String outputID = currentOrder.getOrderID();
+        if (!Helper.IsValidOrderID(outputID)) {
+            rejectOrder(orderID, currentOrder, outputID == null || outputID.isBlank() ? "Order has no orderID"
+                    : "orderID \"" + outputID + "\" may only contain 1-64 letters, digits, '-' and '_'");
+            return CompletableFuture.completedFuture(null);
+        }
+        OrderAnalyzer.Analysis analysis = OrderAnalyzer.analyze(currentOrder.getWords());
+        if (analysis.isRejected()) {
+            rejectOrder(orderID, currentOrder, analysis.rejection());
+            return CompletableFuture.completedFuture(null);
+        }
+        // Orders write to a directory named after their ID so two orders with the same ID must never run together
+        if (!activeOrderIDs.add(currentOrder.getOrderID())) {
+            throw new IllegalStateException("Order " + currentOrder.getOrderID() + " (" + orderID + ") is already being processed");
+        }
 
-            Board board = new Board(50, currentOrder.getWords());
-            if (board.placeWords()){ // If words have been placed
-                board.printBoard();
-                board.export(Helper.GenerateOrderDirectory(currentOrder.getOrderID()));
+        CompletableFuture<Void> deferredRender = null;
+        try {
+            OrderLedger.Failure failure = ledger.getFailure(orderID);
+            int failedAttempts = failure == null ? 0 : failure.attempts();
 
-                Helper.GeneratePoster(currentOrder, board.getScore());
+            // The analyzed words are normalised and ordered so each overlaps an earlier one, which the first layout attempt follows
+            // Retries get a new random seed and more shuffles along with their larger search
+            Board board = new Board(50 * escalation(failedAttempts), analysis.words());
+            boolean placed = layoutCache != null && layoutCache.load(board);
+            if (!placed && board.placeWords(strategyFor(failedAttempts))) {
+                placed = true;
+                if (layoutCache != null) {
+                    layoutCache.store(board);
+                }
+            }
+
+            if (placed){ // If words have been placed
+                if (previewSize > 0) {
+                    try {
+                        board.exportPreview(Helper.GenerateOrderDirectory(currentOrder.getOrderID()), previewSize);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Error writing preview: " + e.getMessage(), e);
+                    }
+                    deferredRender = CompletableFuture.runAsync(() -> {
+                        try {
+                            renderOrder(orderID, currentOrder, board);
+                        } finally {
+                            activeOrderIDs.remove(currentOrder.getOrderID());
+                        }
+                    }, renderExecutor);
+                    return deferredRender;
+                }
+
+                renderOrder(orderID, currentOrder, board);
             } else {
-                // To Do: Error handling - Currently will get re-added to queue on the next scheduled event
+                throw new IllegalStateException("No layout found for " + currentOrder.getWords().size() + " words"
+                        + (failedAttempts > 0 ? " on retry " + failedAttempts + " (" + escalation(failedAttempts) + "x search)" : ""));
+            }
+
+            return CompletableFuture.completedFuture(null);
+        } finally {
+            if (deferredRender == null) {
+                activeOrderIDs.remove(currentOrder.getOrderID());
+            }
+        }
+    }
+
+    /**
+     * Renders the full-size board image (if enabled) and poster for a laid out order in the output format, then marks it done
+     * @param orderID ID of the order from its JSON file name
+     * @param currentOrder Parsed order
+     * @param board Board with the order's words placed
+     * @throws IllegalStateException if the output cannot be written
+     */
+    private void renderOrder(String orderID, Order currentOrder, Board board) {
+        board.printBoard();
+        if (outputFormat == OutputFormat.svg) {
+            try {
+                SvgExporter svgExporter = SvgExporter.getInstance();
+                if (writeBoardImage) {
+                    svgExporter.writeBoard(board, Helper.GenerateOrderDirectory(currentOrder.getOrderID()));
+                }
+                svgExporter.writePoster(currentOrder, board);
+            } catch (IOException | FontFormatException e) {
+                throw new IllegalStateException("Error writing SVG: " + e, e);
             }
+        } else {
+            try {
+                if (writeBoardImage) {
+                    board.export(Helper.GenerateOrderDirectory(currentOrder.getOrderID()));
+                }
+                Helper.GeneratePoster(currentOrder, board);
+            } catch (IOException | FontFormatException e) {
+                throw new IllegalStateException("Error writing PNG: " + e, e);
+            }
+        }
+
+        ledger.record(orderID, OrderLedger.State.done);
+        archive(orderID);
+    }
+
+    /**
+     * Moves a done order's JSON file to the done directory, so later checks for new orders do not list it again
+     * @param orderID ID of the order
+     */
+    private void archive(String orderID) {
+        Path orderJSON = Paths.get(Helper.rootJSONDirectory, orderID + ".json");
+        try {
+            Path done = Files.createDirectories(Paths.get(Helper.doneJSONDirectory));
+            Files.move(orderJSON, done.resolve(orderID + ".json"), StandardCopyOption.REPLACE_EXISTING);
+        } catch (NoSuchFileException e) {
+            // Bulk orders have no JSON file
+        } catch (IOException e) {
+            System.err.println("Error moving " + orderJSON + " to " + Helper.doneJSONDirectory + ": " + e);
         }
     }
-}
\ No newline at end of file
+}
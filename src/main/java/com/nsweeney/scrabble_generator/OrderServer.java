@@ -0,0 +1,241 @@
+package com.nsweeney.scrabble_generator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * HTTP front end for the order processor. Orders posted to /orders are saved to the JSON directory, so they survive a restart
+ * like any other order, and submitted straight away. The order ID doubles as the job ID for checking status and downloading the output
+ *
+ * <pre>
+ * POST /orders               order JSON, returns 202 with {"jobId", "status"}
+ * GET  /orders/{id}          {"jobId", "status"}, status is pending, done, failed or deadLettered
+ * GET  /orders/{id}/board    board image once done, unless board images are disabled
+ * GET  /orders/{id}/poster   poster once done
+ * </pre>
+ */
+public class OrderServer implements AutoCloseable {
+
+    private static final Pattern orderPath = Pattern.compile("/orders/([^/]+)(/board|/poster)?");
+    private static final int maxBodyBytes = 1024 * 1024;
+
+    private final OrderProcessor orderProcessor;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ExecutorService requestExecutor;
+    // Submitting blocks while the processor is full, so it runs here instead of holding up the request threads
+    private final ExecutorService submitter = Executors.newSingleThreadExecutor();
+    private final HttpServer server;
+
+    /**
+     * Starts the server
+     * @param orderProcessor Processor to submit the orders to, created with runOnce false
+     * @param port Port to listen on
+     * @param threads Requests handled at once
+     * @throws IOException if the port cannot be bound
+     */
+    public OrderServer(OrderProcessor orderProcessor, int port, int threads) throws IOException {
+        this.orderProcessor = orderProcessor;
+
+        Files.createDirectories(Paths.get(Helper.rootJSONDirectory));
+
+        requestExecutor = Executors.newFixedThreadPool(threads);
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/orders", this::handle);
+        server.setExecutor(requestExecutor);
+        server.start();
+
+        System.out.println("Accepting orders on port " + server.getAddress().getPort());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+
+            if (path.equals("/orders") || path.equals("/orders/")) {
+                if (method.equals("POST")) {
+                    createOrder(exchange);
+                } else {
+                    sendError(exchange, 405, "Use POST to create an order");
+                }
+                return;
+            }
+
+            Matcher matcher = orderPath.matcher(path);
+            if (!matcher.matches() || !Helper.IsValidOrderID(matcher.group(1))) {
+                sendError(exchange, 404, "Not found");
+                return;
+            }
+            if (!method.equals("GET")) {
+                sendError(exchange, 405, "Use GET to read an order");
+                return;
+            }
+
+            String orderID = matcher.group(1);
+            if (matcher.group(2) == null) {
+                sendStatus(exchange, orderID);
+            } else {
+                sendOutput(exchange, orderID, matcher.group(2).equals("/board") ? "boardImage" : "poster");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error handling " + exchange.getRequestURI() + ": " + e);
+        }
+    }
+
+    /**
+     * Saves and submits a posted order
+     */
+    private void createOrder(HttpExchange exchange) throws IOException {
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readNBytes(maxBodyBytes + 1);
+        }
+        if (body.length > maxBodyBytes) {
+            sendError(exchange, 413, "Orders are limited to " + maxBodyBytes + " bytes");
+            return;
+        }
+
+        Order order;
+        try {
+            order = Helper.ParseOrderJSON(body);
+        } catch (IOException e) {
+            sendError(exchange, 400, "Invalid order JSON");
+            return;
+        }
+
+        if (order.getOrderID() == null || order.getOrderID().isEmpty()) {
+            order.setOrderID(UUID.randomUUID().toString());
+        } else if (!Helper.IsValidOrderID(order.getOrderID())) {
+            sendError(exchange, 400, "orderID may only contain letters, digits, '-' and '_'");
+            return;
+        }
+        if (order.getWords() == null || order.getWords().isEmpty()
+                || order.getWords().stream().anyMatch(word -> word == null || word.isBlank())) {
+            sendError(exchange, 400, "Orders need at least one word and no blank words");
+            return;
+        }
+
+        OrderAnalyzer.Analysis analysis = OrderAnalyzer.analyze(order.getWords());
+        if (analysis.isRejected()) {
+            sendError(exchange, 422, analysis.rejection());
+            return;
+        }
+
+        String orderID = order.getOrderID();
+        // Dead-lettered orders have no JSON file left to conflict with, but like done orders they would never be processed again
+        OrderLedger.State state = orderProcessor.getState(orderID);
+        if (state != null) {
+            sendError(exchange, 409, "Order " + orderID + " already exists (" + state + ")");
+            return;
+        }
+
+        Path orderFile = Paths.get(Helper.rootJSONDirectory, orderID + ".json");
+        Path temporary = Files.createTempFile(orderFile.getParent(), orderID, ".tmp");
+        try {
+            Files.write(temporary, mapper.writeValueAsBytes(order));
+            // Linking fails if the file exists, so an existing ID is a conflict even when two requests race, and the file
+            // never appears half written
+            Files.createLink(orderFile, temporary);
+        } catch (FileAlreadyExistsException e) {
+            sendError(exchange, 409, "Order " + orderID + " already exists");
+            return;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        // The order is already saved, so it is submitted in the background and picked up from its file after a restart
+        submitter.execute(() -> orderProcessor.submit(order));
+        sendJson(exchange, 202, orderID, OrderLedger.State.pending);
+    }
+
+    private void sendStatus(HttpExchange exchange, String orderID) throws IOException {
+        OrderLedger.State state = orderProcessor.getState(orderID);
+        if (state == null && Files.exists(Paths.get(Helper.rootJSONDirectory, orderID + ".json"))) {
+            state = OrderLedger.State.pending; // Saved but still waiting to be submitted
+        }
+        if (state == null) {
+            sendError(exchange, 404, "Unknown order " + orderID);
+            return;
+        }
+
+        sendJson(exchange, 200, orderID, state);
+    }
+
+    /**
+     * Sends one of an order's output files in the processor's output format
+     */
+    private void sendOutput(HttpExchange exchange, String orderID, String name) throws IOException {
+        if (orderProcessor.getState(orderID) != OrderLedger.State.done) {
+            sendError(exchange, 404, "Order " + orderID + " is not done");
+            return;
+        }
+
+        boolean svg = orderProcessor.getOutputFormat() == OrderProcessor.OutputFormat.svg;
+        Path file = Paths.get(Helper.GenerateOrderDirectory(orderID) + name + (svg ? ".svg" : ".png"));
+        if (!Files.exists(file)) {
+            sendError(exchange, 404, "Order " + orderID + " has no " + file.getFileName());
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", svg ? "image/svg+xml" : "image/png");
+        exchange.sendResponseHeaders(200, Files.size(file));
+        try (OutputStream out = exchange.getResponseBody()) {
+            Files.copy(file, out);
+        }
+    }
+
+    private void sendJson(HttpExchange exchange, int status, String orderID, OrderLedger.State state) throws IOException {
+        Map<String, String> response = new LinkedHashMap<>();
+        response.put("jobId", orderID);
+        response.put("status", state.name());
+        send(exchange, status, "application/json", mapper.writeValueAsBytes(response));
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, "application/json", mapper.writeValueAsBytes(Map.of("error", message)));
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Stops accepting requests, then waits for the submitted orders to finish
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        requestExecutor.shutdown();
+        try {
+            requestExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            submitter.shutdown();
+            submitter.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        orderProcessor.shutdown();
+    }
+}
@@ -0,0 +1,142 @@
+package com.nsweeney.scrabble_generator;
+
+import java.awt.FontFormatException;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-running alternative to the cron job. Watches the JSON directory and submits new orders to a processor that stays warm between orders
+ */
+public class OrderWatcher implements AutoCloseable {
+
+    /**
+     * Time a file must go without changes before it is read, so orders that are still being written are not parsed early
+     */
+    private static final long settleMillis = 250;
+
+    private final OrderProcessor orderProcessor;
+    private final WatchService watchService;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    // Submitting blocks while the processor is full, so it runs here instead of holding up the settle timers
+    private final ExecutorService submitter = Executors.newSingleThreadExecutor();
+    private final Map<String, ScheduledFuture<?>> settling = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+
+    /**
+     * Creates the watcher, loads the shared resources and submits any orders that arrived while it was not running
+     * @param orderProcessor Processor to submit the orders to, created with runOnce false
+     * @throws IOException if the JSON directory cannot be watched
+     */
+    public OrderWatcher(OrderProcessor orderProcessor) throws IOException {
+        this.orderProcessor = orderProcessor;
+
+        // Load the tiles and poster resources before the first order instead of during it
+        TileAtlas.getInstance();
+        try {
+            PosterTemplate.getInstance();
+        } catch (FontFormatException e) {
+            throw new IOException("Invalid poster font", e);
+        }
+
+        watchService = FileSystems.getDefault().newWatchService();
+        Paths.get(Helper.rootJSONDirectory).register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        orderProcessor.CheckNewOrders();
+    }
+
+    /**
+     * Handles file events until the watcher is closed
+     */
+    public void run() {
+        System.out.println("Watching " + Helper.rootJSONDirectory + " for new orders");
+
+        while (running) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (ClosedWatchServiceException | InterruptedException e) {
+                break;
+            }
+
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // Events were dropped, fall back to comparing the directories
+                    submitter.execute(orderProcessor::submitDueOrders);
+                    continue;
+                }
+
+                String fileName = ((Path) event.context()).getFileName().toString();
+                if (fileName.endsWith(".json")) {
+                    scheduleOrder(fileName.replace(".json", ""));
+                }
+            }
+
+            if (!key.reset()) {
+                System.err.println("JSON directory " + Helper.rootJSONDirectory + " is no longer accessible");
+                break;
+            }
+        }
+    }
+
+    /**
+     * Submits the order once its file has stopped changing
+     * @param orderID ID of the order's JSON file
+     */
+    private void scheduleOrder(String orderID) {
+        settling.compute(orderID, (id, previous) -> {
+            if (previous != null) {
+                previous.cancel(false);
+            }
+
+            return scheduler.schedule(() -> {
+                settling.remove(id);
+                submitter.execute(() -> {
+                    // Rewriting a completed order's file does not process it again, matching CheckNewOrders
+                    if (!orderProcessor.isCompleted(id)) {
+                        orderProcessor.submit(id);
+                    }
+                });
+            }, settleMillis, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    /**
+     * Stops watching, then waits for the submitted orders to finish
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("Error closing watch service: " + e);
+        }
+
+        // Settling files are still submitted, then the submitter finishes before the processor is shut down
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            submitter.shutdown();
+            submitter.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        orderProcessor.shutdown();
+    }
+}
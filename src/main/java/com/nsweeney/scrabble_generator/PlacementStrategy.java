@@ -0,0 +1,15 @@
+package com.nsweeney.scrabble_generator;
+
+/**
+ * Algorithm used by a board to place its words
+ */
+public interface PlacementStrategy {
+
+    /**
+     * Places every word on the board and completes the layout (trimmed grid and score)
+     *
+     * @param board board holding the order's words
+     * @return True if placed; otherwise False
+     */
+    boolean placeWords(Board board);
+}
@@ -0,0 +1,483 @@
+package com.nsweeney.scrabble_generator;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * PNG writer that filters and deflates bands of rows in parallel. Each band is compressed on its own with the previous band's
+ * last 32KB as its dictionary and ends on a sync flush, so the bands join into one standard zlib stream
+ */
+public class PngEncoder {
+
+    /**
+     * Compression constants defined as enumerations
+     */
+    public enum Compression {
+        fast(1, 0x01),
+        standard(6, 0x9C),
+        max(9, 0xDA);
+
+        private final int level;
+        private final int zlibFlags;
+
+        Compression(int level, int zlibFlags) {
+            this.level = level;
+            this.zlibFlags = zlibFlags;
+        }
+    }
+
+    /**
+     * Supplies an image's pixels one row at a time. Rows are requested from several threads at once, so it must be thread safe
+     */
+    public interface RowSource {
+        /**
+         * Fills a row with packed ARGB pixels
+         *
+         * @param y Row to read
+         * @param argb Destination with one int per pixel
+         */
+        void getRow(int y, int[] argb);
+    }
+
+    private static final byte[] signature = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+    private static final int windowSize = 32 * 1024;
+    private static final int bandBytes = 256 * 1024;
+
+    private final Compression compression;
+    private final Executor executor;
+    private final int maxBandsInFlight;
+
+    /**
+     * Creates an encoder that compresses on the common fork/join pool
+     *
+     * @param compression Speed and size trade off
+     */
+    public PngEncoder(Compression compression) {
+        this(compression, ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * @param compression Speed and size trade off
+     * @param executor Runs the band compression
+     * @param parallelism Bands compressed at once, more are not started until the earliest has been written
+     */
+    public PngEncoder(Compression compression, Executor executor, int parallelism) {
+        this.compression = compression;
+        this.executor = executor;
+        this.maxBandsInFlight = Math.max(1, parallelism) * 2;
+    }
+
+    /**
+     * Writes an image to a PNG file
+     *
+     * @param image Image to write
+     * @param file Destination file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(BufferedImage image, File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file.toPath()), 64 * 1024)) {
+            write(image, out);
+        }
+    }
+
+    /**
+     * Writes rows supplied on demand to a PNG file
+     *
+     * @param width Image width in pixels
+     * @param height Image height in pixels
+     * @param alpha True to write RGBA; otherwise RGB
+     * @param rows Supplies each row's pixels
+     * @param file Destination file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(int width, int height, boolean alpha, RowSource rows, File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file.toPath()), 64 * 1024)) {
+            write(width, height, alpha, rows, out);
+        }
+    }
+
+    /**
+     * Writes an image as PNG. Images with an alpha channel are written as RGBA, others as RGB
+     *
+     * @param image Image to write
+     * @param out Destination stream, left open
+     * @throws IOException if the stream cannot be written
+     */
+    public void write(BufferedImage image, OutputStream out) throws IOException {
+        write(image.getWidth(), image.getHeight(), image.getColorModel().hasAlpha(), rowSource(image), out);
+    }
+
+    /**
+     * Writes rows supplied on demand as PNG, so an image does not need to exist in full before it is encoded
+     *
+     * @param width Image width in pixels
+     * @param height Image height in pixels
+     * @param alpha True to write RGBA; otherwise RGB
+     * @param rows Supplies each row's pixels
+     * @param out Destination stream, left open
+     * @throws IOException if the stream cannot be written
+     */
+    public void write(int width, int height, boolean alpha, RowSource rows, OutputStream out) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("PNG images must be at least 1x1, got " + width + "x" + height);
+        }
+
+        int rowBytes = width * (alpha ? 4 : 3) + 1; // Each row starts with its filter type
+        int bandRows = Math.max(1, bandBytes / rowBytes);
+        int bandCount = (height + bandRows - 1) / bandRows;
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(signature);
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+        DataOutputStream headerData = new DataOutputStream(header);
+        headerData.writeInt(width);
+        headerData.writeInt(height);
+        headerData.writeByte(8); // Bit depth
+        headerData.writeByte(alpha ? 6 : 2); // Colour type RGBA or RGB
+        headerData.writeByte(0); // Deflate
+        headerData.writeByte(0); // Adaptive filtering
+        headerData.writeByte(0); // Not interlaced
+        writeChunk(data, "IHDR", header.toByteArray(), 0, header.size());
+
+        Deque<CompletableFuture<Band>> inFlight = new ArrayDeque<>();
+        int nextBand = 0;
+        long adler = 1;
+        boolean first = true;
+
+        try {
+            while (nextBand < bandCount || !inFlight.isEmpty()) {
+                while (nextBand < bandCount && inFlight.size() < maxBandsInFlight) {
+                    int startRow = nextBand * bandRows;
+                    int endRow = Math.min(height, startRow + bandRows);
+                    boolean last = ++nextBand == bandCount;
+                    inFlight.add(CompletableFuture.supplyAsync(
+                            () -> compressBand(width, alpha, rows, startRow, endRow, last), executor));
+                }
+
+                Band band = inFlight.poll().join();
+                adler = combineAdler32(adler, band.adler, band.rawLength);
+
+                byte[] idat = band.compressed;
+                int length = band.compressedLength;
+                if (first || inFlight.isEmpty() && nextBand == bandCount) {
+                    // The zlib header goes before the first band and the checksum after the last
+                    ByteArrayOutputStream wrapped = new ByteArrayOutputStream(length + 6);
+                    if (first) {
+                        wrapped.write(0x78);
+                        wrapped.write(compression.zlibFlags);
+                    }
+                    wrapped.write(idat, 0, length);
+                    if (inFlight.isEmpty() && nextBand == bandCount) {
+                        new DataOutputStream(wrapped).writeInt((int) adler);
+                    }
+                    idat = wrapped.toByteArray();
+                    length = idat.length;
+                    first = false;
+                }
+
+                writeChunk(data, "IDAT", idat, 0, length);
+            }
+        } catch (CompletionException e) {
+            inFlight.forEach(pending -> pending.cancel(false));
+            throw new IOException("Error encoding PNG", e.getCause());
+        }
+
+        writeChunk(data, "IEND", new byte[0], 0, 0);
+        data.flush();
+    }
+
+    /**
+     * A compressed band of rows along with the checksum of its uncompressed bytes
+     */
+    private record Band(byte[] compressed, int compressedLength, long adler, long rawLength) {
+    }
+
+    /**
+     * Filters and deflates a band of rows
+     *
+     * @param last True for the final band, which finishes the deflate stream
+     * @return compressed band
+     */
+    private Band compressBand(int width, boolean alpha, RowSource rows, int startRow, int endRow, boolean last) {
+        int bytesPerPixel = alpha ? 4 : 3;
+        int rowBytes = width * bytesPerPixel + 1;
+        int[] argb = new int[width];
+        byte[] previous = new byte[rowBytes - 1];
+        byte[] current = new byte[rowBytes - 1];
+
+        // The rows before the band are filtered again to give the deflater the history the previous band ends with
+        int historyRows = startRow == 0 ? 0 : Math.min(startRow, (windowSize + rowBytes - 1) / rowBytes);
+        int firstRow = startRow - historyRows;
+        if (firstRow > 0) {
+            rows.getRow(firstRow - 1, argb);
+            toBytes(argb, alpha, previous);
+        }
+
+        byte[] filtered = new byte[(endRow - firstRow) * rowBytes];
+        for (int y = firstRow; y < endRow; y++) {
+            rows.getRow(y, argb);
+            toBytes(argb, alpha, current);
+            filterRow(current, y == 0 ? null : previous, bytesPerPixel, filtered, (y - firstRow) * rowBytes);
+
+            byte[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        int historyBytes = historyRows * rowBytes;
+        int rawLength = filtered.length - historyBytes;
+        Adler32 checksum = new Adler32();
+        checksum.update(filtered, historyBytes, rawLength);
+
+        Deflater deflater = new Deflater(compression.level, true);
+        try {
+            if (historyBytes > 0) {
+                int dictionaryLength = Math.min(windowSize, historyBytes);
+                deflater.setDictionary(filtered, historyBytes - dictionaryLength, dictionaryLength);
+            }
+            deflater.setInput(filtered, historyBytes, rawLength);
+
+            byte[] compressed = new byte[rawLength / 4 + 64];
+            int length = 0;
+            if (last) {
+                deflater.finish();
+            }
+            while (true) {
+                if (length == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                int written = deflater.deflate(compressed, length, compressed.length - length,
+                        last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+                length += written;
+
+                // A sync flush is complete once it stops filling the buffer, the final band once the stream is finished
+                if (last ? deflater.finished() : length < compressed.length) {
+                    break;
+                }
+            }
+
+            return new Band(compressed, length, checksum.getValue(), rawLength);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Unpacks ARGB pixels into RGBA or RGB bytes
+     */
+    private static void toBytes(int[] argb, boolean alpha, byte[] out) {
+        int o = 0;
+        for (int pixel : argb) {
+            out[o++] = (byte) (pixel >>> 16);
+            out[o++] = (byte) (pixel >>> 8);
+            out[o++] = (byte) pixel;
+            if (alpha) {
+                out[o++] = (byte) (pixel >>> 24);
+            }
+        }
+    }
+
+    /**
+     * Writes a filtered row. The max mode picks the filter with the smallest sum of absolute differences, the usual heuristic
+     * for which filter will compress best. Trying every filter costs more than the deflate on board images for a few percent,
+     * so the other modes always use the Up filter
+     *
+     * @param row Unfiltered row
+     * @param previous Unfiltered row above, or null for the first row
+     * @param bytesPerPixel Bytes in a pixel
+     * @param out Destination for the filter type byte followed by the filtered row
+     * @param offset Position in the destination
+     */
+    private void filterRow(byte[] row, byte[] previous, int bytesPerPixel, byte[] out, int offset) {
+        if (previous == null) {
+            out[offset] = 1; // Sub, as there is no row above
+            applyFilter(1, row, null, bytesPerPixel, out, offset + 1);
+            return;
+        }
+
+        if (compression != Compression.max) {
+            out[offset] = 2;
+            applyFilter(2, row, previous, bytesPerPixel, out, offset + 1);
+            return;
+        }
+
+        int bestFilter = 0;
+        long bestSum = Long.MAX_VALUE;
+        for (int filter = 0; filter <= 4; filter++) {
+            applyFilter(filter, row, previous, bytesPerPixel, out, offset + 1);
+            long sum = 0;
+            for (int i = 0; i < row.length; i++) {
+                sum += Math.abs(out[offset + 1 + i]);
+            }
+            if (sum < bestSum) {
+                bestSum = sum;
+                bestFilter = filter;
+            }
+        }
+
+        out[offset] = (byte) bestFilter;
+        if (bestFilter != 4) {
+            applyFilter(bestFilter, row, previous, bytesPerPixel, out, offset + 1);
+        }
+    }
+
+    /**
+     * Applies one of the five PNG filters to a row. Each filter has its own loop as this runs for every byte of the image
+     */
+    private static void applyFilter(int filter, byte[] row, byte[] previous, int bytesPerPixel, byte[] out, int offset) {
+        int length = row.length;
+
+        switch (filter) {
+            case 1 -> {
+                System.arraycopy(row, 0, out, offset, bytesPerPixel);
+                for (int i = bytesPerPixel; i < length; i++) {
+                    out[offset + i] = (byte) (row[i] - row[i - bytesPerPixel]);
+                }
+            }
+            case 2 -> {
+                for (int i = 0; i < length; i++) {
+                    out[offset + i] = (byte) (row[i] - previous[i]);
+                }
+            }
+            case 3 -> {
+                for (int i = 0; i < bytesPerPixel; i++) {
+                    out[offset + i] = (byte) (row[i] - ((previous[i] & 0xFF) >>> 1));
+                }
+                for (int i = bytesPerPixel; i < length; i++) {
+                    out[offset + i] = (byte) (row[i] - (((row[i - bytesPerPixel] & 0xFF) + (previous[i] & 0xFF)) >>> 1));
+                }
+            }
+            case 4 -> {
+                for (int i = 0; i < bytesPerPixel; i++) {
+                    out[offset + i] = (byte) (row[i] - previous[i]); // Paeth picks the row above when there is no left pixel
+                }
+                for (int i = bytesPerPixel; i < length; i++) {
+                    int predicted = paeth(row[i - bytesPerPixel] & 0xFF, previous[i] & 0xFF, previous[i - bytesPerPixel] & 0xFF);
+                    out[offset + i] = (byte) (row[i] - predicted);
+                }
+            }
+            default -> System.arraycopy(row, 0, out, offset, length);
+        }
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+
+        if (pa <= pb && pa <= pc) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+
+    /**
+     * Combines the Adler-32 checksums of two consecutive blocks of data, as zlib's adler32_combine
+     *
+     * @param adler1 checksum of the first block
+     * @param adler2 checksum of the second block
+     * @param length2 length of the second block
+     * @return checksum of both blocks
+     */
+    private static long combineAdler32(long adler1, long adler2, long length2) {
+        final long base = 65521;
+        long remainder = length2 % base;
+        long sum1 = adler1 & 0xFFFF;
+        long sum2 = (remainder * sum1) % base;
+
+        sum1 += (adler2 & 0xFFFF) + base - 1;
+        sum2 += ((adler1 >>> 16) & 0xFFFF) + ((adler2 >>> 16) & 0xFFFF) + base - remainder;
+        if (sum1 >= base) {
+            sum1 -= base;
+        }
+        if (sum1 >= base) {
+            sum1 -= base;
+        }
+        if (sum2 >= base << 1) {
+            sum2 -= base << 1;
+        }
+        if (sum2 >= base) {
+            sum2 -= base;
+        }
+
+        return sum1 | (sum2 << 16);
+    }
+
+    /**
+     * Writes a PNG chunk: its length, type, data and CRC
+     */
+    private static void writeChunk(DataOutputStream out, String type, byte[] data, int offset, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, offset, length);
+
+        out.writeInt(length);
+        out.write(typeBytes);
+        out.write(data, offset, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Reads rows from an image. Packed int and BGR images are read straight from their rasters, others through getRGB
+     *
+     * @param image Image to read
+     * @return row source for the image
+     */
+    private static RowSource rowSource(BufferedImage image) {
+        WritableRaster raster = image.getRaster();
+        int width = image.getWidth();
+
+        if ((image.getType() == BufferedImage.TYPE_INT_ARGB || image.getType() == BufferedImage.TYPE_INT_RGB)
+                && raster.getDataBuffer() instanceof DataBufferInt buffer
+                && raster.getSampleModel() instanceof SinglePixelPackedSampleModel sampleModel) {
+            int[] pixels = buffer.getData();
+            int stride = sampleModel.getScanlineStride();
+            int offset = buffer.getOffset() - raster.getSampleModelTranslateY() * stride - raster.getSampleModelTranslateX();
+            int alphaBits = image.getType() == BufferedImage.TYPE_INT_RGB ? 0xFF000000 : 0;
+
+            return (y, argb) -> {
+                System.arraycopy(pixels, offset + y * stride, argb, 0, width);
+                if (alphaBits != 0) {
+                    for (int x = 0; x < width; x++) {
+                        argb[x] |= alphaBits;
+                    }
+                }
+            };
+        }
+
+        if (image.getType() == BufferedImage.TYPE_3BYTE_BGR) {
+            return (y, argb) -> {
+                // Data elements come back in band order, which is RGB even though the buffer is stored as BGR
+                byte[] rgb = (byte[]) raster.getDataElements(0, y, width, 1, null);
+                for (int x = 0, i = 0; x < width; x++, i += 3) {
+                    argb[x] = 0xFF000000 | (rgb[i] & 0xFF) << 16 | (rgb[i + 1] & 0xFF) << 8 | rgb[i + 2] & 0xFF;
+                }
+            };
+        }
+
+        return (y, argb) -> image.getRGB(0, y, width, 1, argb, 0, width);
+    }
+}
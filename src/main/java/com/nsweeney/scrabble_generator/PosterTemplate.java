@@ -0,0 +1,100 @@
+package com.nsweeney.scrabble_generator;
+
+import java.awt.Font;
+import java.awt.FontFormatException;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+
+import javax.imageio.ImageIO;
+
+public class PosterTemplate {
+
+    private static PosterTemplate instance;
+
+    private final BufferedImage background;
+    private final Font titleFont;
+    private final Font scoreFont;
+    private final FontMetrics titleMetrics;
+    private final FontMetrics scoreMetrics;
+
+    /**
+     * Parses the poster font and decodes the background once so each order only needs to copy the pixels
+     *
+     * @throws IOException if the font or background cannot be read
+     * @throws FontFormatException if the font file is invalid
+     */
+    private PosterTemplate() throws IOException, FontFormatException {
+        try (InputStream is = Main.class.getResourceAsStream("/fonts/Pacifico-Regular.ttf")) {
+            if (is == null) {
+                throw new IOException("Missing poster font");
+            }
+            titleFont = Font.createFont(Font.TRUETYPE_FONT, is).deriveFont(200f);
+        }
+        scoreFont = new Font("Arial", Font.BOLD, 120);
+
+        URL backgroundResource = Main.class.getResource("/letters/background.png");
+        if (backgroundResource == null) {
+            throw new IOException("Missing poster background");
+        }
+        background = ImageIO.read(backgroundResource);
+
+        Graphics2D g = background.createGraphics();
+        titleMetrics = g.getFontMetrics(titleFont);
+        scoreMetrics = g.getFontMetrics(scoreFont);
+        g.dispose();
+    }
+
+    /**
+     * Gets the process-wide poster template, loading it on first use
+     *
+     * @return shared poster template
+     * @throws IOException if the resources cannot be read
+     * @throws FontFormatException if the font file is invalid
+     */
+    public static synchronized PosterTemplate getInstance() throws IOException, FontFormatException {
+        if (instance == null) {
+            instance = new PosterTemplate();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Creates a copy of the background for a single poster to be drawn on. The shared background is never modified
+     *
+     * @return new image containing the background pixels
+     */
+    public BufferedImage newCanvas() {
+        WritableRaster raster = background.copyData(null);
+        return new BufferedImage(background.getColorModel(), raster, background.isAlphaPremultiplied(), null);
+    }
+
+    public int getWidth() {
+        return background.getWidth();
+    }
+
+    public int getHeight() {
+        return background.getHeight();
+    }
+
+    public Font getTitleFont() {
+        return titleFont;
+    }
+
+    public Font getScoreFont() {
+        return scoreFont;
+    }
+
+    public FontMetrics getTitleMetrics() {
+        return titleMetrics;
+    }
+
+    public FontMetrics getScoreMetrics() {
+        return scoreMetrics;
+    }
+}
@@ -0,0 +1,22 @@
+package com.nsweeney.scrabble_generator;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Original placement strategy: shuffles the words, takes the first valid position for each and restarts when stuck
+ */
+public class ShufflePlacement implements PlacementStrategy {
+    private final int attempts;
+
+    /**
+     * @param attempts number of parallel layout attempts (1 uses the sequential search)
+     */
+    public ShufflePlacement(int attempts) {
+        this.attempts = attempts;
+    }
+
+    @Override
+    public boolean placeWords(Board board) {
+        return board.placeWords(ForkJoinPool.commonPool(), attempts);
+    }
+}
@@ -0,0 +1,187 @@
+package com.nsweeney.scrabble_generator;
+
+import java.awt.FontFormatException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Base64;
+
+/**
+ * Writes boards and posters as SVG. Each letter's tile image is embedded once as a symbol and every tile on the board
+ * references it, so the file grows with the number of tiles rather than the pixel area
+ */
+public class SvgExporter {
+
+    private static SvgExporter instance;
+
+    private final String[] tileData = new String[26];
+    private final String backgroundData;
+    private final String titleFontData;
+    private final int tileWidth;
+
+    /**
+     * Encodes the tile, background and font resources once. The resource files are embedded as they are, without decoding
+     *
+     * @throws IOException if a resource is missing or cannot be read
+     */
+    private SvgExporter() throws IOException {
+        for (char letter = 'A'; letter <= 'Z'; letter++) {
+            tileData[letter - 'A'] = readResource("/letters/" + letter + ".png");
+        }
+        backgroundData = readResource("/letters/background.png");
+        titleFontData = readResource("/fonts/Pacifico-Regular.ttf");
+        tileWidth = TileAtlas.getInstance().getTileWidth();
+    }
+
+    /**
+     * Gets the process-wide exporter, loading the resources on first use
+     *
+     * @return shared SVG exporter
+     * @throws IOException if the resources cannot be read
+     */
+    public static synchronized SvgExporter getInstance() throws IOException {
+        if (instance == null) {
+            instance = new SvgExporter();
+        }
+
+        return instance;
+    }
+
+    private static String readResource(String name) throws IOException {
+        try (InputStream is = Main.class.getResourceAsStream(name)) {
+            if (is == null) {
+                throw new IOException("Missing resource " + name);
+            }
+            return Base64.getEncoder().encodeToString(is.readAllBytes());
+        }
+    }
+
+    /**
+     * Writes the board to boardImage.svg in the provided directory, at the same size as the PNG export
+     *
+     * @param board Board with its words placed
+     * @param dir Directory path
+     * @throws IOException if the file cannot be written
+     */
+    public void writeBoard(Board board, String dir) throws IOException {
+        long start = System.nanoTime();
+        int gridSize = board.getGridSize();
+        int size = gridSize * tileWidth;
+
+        Files.createDirectories(Paths.get(dir));
+        try (Writer out = Files.newBufferedWriter(Paths.get(dir + "boardImage.svg"), StandardCharsets.UTF_8)) {
+            out.write("<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" width=\""
+                    + size + "\" height=\"" + size + "\" viewBox=\"0 0 " + gridSize + " " + gridSize + "\">\n");
+            writeTiles(board, out);
+            out.write("</svg>\n");
+        } finally {
+            Metrics.export.record(start);
+        }
+    }
+
+    /**
+     * Writes the poster to poster.svg in the order's directory, laid out the same way as the PNG poster
+     *
+     * @param order Order information
+     * @param board Board with the order's words placed
+     * @throws IOException if the file cannot be written
+     * @throws FontFormatException if the poster font is invalid
+     */
+    public void writePoster(Order order, Board board) throws IOException, FontFormatException {
+        long start = System.nanoTime();
+        PosterTemplate template = PosterTemplate.getInstance();
+        int width = template.getWidth();
+        int height = template.getHeight();
+        int xCentre = width / 2;
+        int yCentre = height / 2;
+
+        int boardSize = (int) (width * 0.75f);
+        int boardX = xCentre - boardSize / 2;
+        int boardY = yCentre - boardSize / 2;
+        int gridSize = board.getGridSize();
+
+        String orderDir = Helper.GenerateOrderDirectory(order.getOrderID());
+        Files.createDirectories(Paths.get(orderDir));
+        try (Writer out = Files.newBufferedWriter(Paths.get(orderDir + "poster.svg"), StandardCharsets.UTF_8)) {
+            out.write("<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" width=\""
+                    + width + "\" height=\"" + height + "\" viewBox=\"0 0 " + width + " " + height + "\">\n");
+            out.write("<style>@font-face { font-family: \"Pacifico\"; src: url(data:font/ttf;base64," + titleFontData + ") format(\"truetype\"); }</style>\n");
+            out.write("<image width=\"" + width + "\" height=\"" + height + "\" xlink:href=\"data:image/png;base64," + backgroundData + "\"/>\n");
+
+            out.write("<svg x=\"" + boardX + "\" y=\"" + boardY + "\" width=\"" + boardSize + "\" height=\"" + boardSize
+                    + "\" viewBox=\"0 0 " + gridSize + " " + gridSize + "\">\n");
+            writeTiles(board, out);
+            out.write("</svg>\n");
+
+            out.write("<text x=\"" + xCentre + "\" y=\"750\" text-anchor=\"middle\" font-family=\"Pacifico\" font-size=\""
+                    + template.getTitleFont().getSize() + "\" fill=\"#000\">" + escape(order.getTopText()) + "</text>\n");
+            out.write("<text x=\"" + xCentre + "\" y=\"" + (height - 750) + "\" text-anchor=\"middle\" font-family=\"Arial, Helvetica, sans-serif\" font-weight=\"bold\" font-size=\""
+                    + template.getScoreFont().getSize() + "\" fill=\"#000\">Word Score: " + board.getScore() + "</text>\n");
+            out.write("</svg>\n");
+        } finally {
+            Metrics.generatePoster.record(start);
+        }
+    }
+
+    /**
+     * Writes a symbol for each letter on the board followed by one reference per tile, in tile units.
+     * Tile (i, j) is drawn at x = i, y = j to match the PNG export
+     */
+    private void writeTiles(Board board, Writer out) throws IOException {
+        int gridSize = board.getGridSize();
+        char[] layout = board.getLayout();
+
+        boolean[] used = new boolean[26];
+        for (char letter : layout) {
+            if (letter >= 'A' && letter <= 'Z') {
+                used[letter - 'A'] = true;
+            } else if (letter != ' ') {
+                throw new IOException("No tile image for letter " + letter);
+            }
+        }
+
+        out.write("<defs>\n");
+        for (int t = 0; t < used.length; t++) {
+            if (used[t]) {
+                out.write("<symbol id=\"tile-" + (char) ('A' + t) + "\" viewBox=\"0 0 " + tileWidth + " " + tileWidth + "\">"
+                        + "<image width=\"" + tileWidth + "\" height=\"" + tileWidth + "\" xlink:href=\"data:image/png;base64,"
+                        + tileData[t] + "\"/></symbol>\n");
+            }
+        }
+        out.write("</defs>\n");
+
+        for (int i = 0; i < gridSize; i++) {
+            for (int j = 0; j < gridSize; j++) {
+                char letter = layout[i * gridSize + j];
+                if (letter != ' ') {
+                    out.write("<use xlink:href=\"#tile-" + letter + "\" x=\"" + i + "\" y=\"" + j + "\" width=\"1\" height=\"1\"/>\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Escapes text for use in XML content
+     */
+    private static String escape(String text) {
+        if (text == null) {
+            return "";
+        }
+
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int c = 0; c < text.length(); c++) {
+            char character = text.charAt(c);
+            switch (character) {
+                case '&' -> escaped.append("&amp;");
+                case '<' -> escaped.append("&lt;");
+                case '>' -> escaped.append("&gt;");
+                case '"' -> escaped.append("&quot;");
+                default -> escaped.append(character);
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,161 @@
+package com.nsweeney.scrabble_generator;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.imageio.ImageIO;
+
+public class TileAtlas {
+
+    private static TileAtlas instance;
+
+    private final BufferedImage[] tiles = new BufferedImage[26];
+    private final int[][] tilePixels = new int[26][];
+    private final Map<Integer, int[][]> scaledTilePixels = new ConcurrentHashMap<>();
+    private final int tileWidth;
+
+    /**
+     * Decodes every letter tile once and converts it to the pixel format used when exporting boards
+     *
+     * @throws IOException if a letter image is missing or cannot be decoded
+     */
+    private TileAtlas() throws IOException {
+        for (char letter = 'A'; letter <= 'Z'; letter++) {
+            URL resource = Main.class.getResource("/letters/" + letter + ".png");
+            if (resource == null) {
+                throw new IOException("Missing tile image for letter " + letter);
+            }
+
+            tiles[letter - 'A'] = toCompatible(ImageIO.read(resource));
+            tilePixels[letter - 'A'] = ((DataBufferInt) tiles[letter - 'A'].getRaster().getDataBuffer()).getData();
+        }
+
+        tileWidth = tiles[0].getWidth();
+    }
+
+    /**
+     * Gets the process-wide atlas, loading the tiles on first use
+     *
+     * @return shared tile atlas
+     * @throws IOException if the tiles cannot be loaded
+     */
+    public static synchronized TileAtlas getInstance() throws IOException {
+        if (instance == null) {
+            instance = new TileAtlas();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Converts a decoded image to TYPE_INT_ARGB so drawing it onto the board image needs no colour conversion
+     *
+     * @param image decoded image
+     * @return image in TYPE_INT_ARGB format
+     */
+    private static BufferedImage toCompatible(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB && image.getRaster().getParent() == null) {
+            return image;
+        }
+
+        BufferedImage converted = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = converted.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+
+        return converted;
+    }
+
+    /**
+     * Gets the tile image for the provided letter
+     *
+     * @param letter Letter A-Z
+     * @return tile image, or null if there is no tile for the letter
+     */
+    public BufferedImage getTile(char letter) {
+        if (letter < 'A' || letter > 'Z') {
+            return null;
+        }
+
+        return tiles[letter - 'A'];
+    }
+
+    /**
+     * Gets the tile's pixels as packed ARGB ints, row by row with no padding. The array is shared and must not be modified
+     *
+     * @param letter Letter A-Z
+     * @return tile pixels, or null if there is no tile for the letter
+     */
+    public int[] getTilePixels(char letter) {
+        if (letter < 'A' || letter > 'Z') {
+            return null;
+        }
+
+        return tilePixels[letter - 'A'];
+    }
+
+    /**
+     * Gets the tile's pixels at the given size, scaling every tile to that size the first time it is asked for.
+     * The array is shared and must not be modified
+     *
+     * @param letter Letter A-Z
+     * @param size Width (and height) of the tile in pixels, at most the full tile width
+     * @return tile pixels, or null if there is no tile for the letter
+     */
+    public int[] getTilePixels(char letter, int size) {
+        if (size == tileWidth) {
+            return getTilePixels(letter);
+        }
+        if (letter < 'A' || letter > 'Z') {
+            return null;
+        }
+
+        return scaledTilePixels.computeIfAbsent(size, this::scaleTiles)[letter - 'A'];
+    }
+
+    /**
+     * Scales every tile down to the given size, halving with bilinear filtering at each step so the letters stay smooth
+     *
+     * @param size Width (and height) of the scaled tiles
+     * @return scaled pixels for A-Z
+     */
+    private int[][] scaleTiles(int size) {
+        int[][] scaled = new int[26][];
+
+        for (int t = 0; t < tiles.length; t++) {
+            BufferedImage current = tiles[t];
+            int width = tileWidth;
+
+            do {
+                width = Math.max(size, width / 2);
+                BufferedImage next = new BufferedImage(width, width, BufferedImage.TYPE_INT_ARGB);
+                Graphics2D g = next.createGraphics();
+                g.setComposite(AlphaComposite.Src);
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(current, 0, 0, width, width, null);
+                g.dispose();
+                current = next;
+            } while (width > size);
+
+            scaled[t] = ((DataBufferInt) current.getRaster().getDataBuffer()).getData();
+        }
+
+        return scaled;
+    }
+
+    /**
+     * Gets the width (and height) of a single tile in pixels
+     *
+     * @return tile width
+     */
+    public int getTileWidth() {
+        return tileWidth;
+    }
+}
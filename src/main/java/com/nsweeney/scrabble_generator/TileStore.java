@@ -0,0 +1,166 @@
+package com.nsweeney.scrabble_generator;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sparse tile storage over unbounded (including negative) coordinates. Tiles live in 32x32 chunks that only exist where
+ * tiles have been placed, so memory follows the number of tiles rather than the area they span.
+ * Each chunk keeps row and column occupancy masks so runs of cells can be checked a chunk at a time
+ */
+class TileStore {
+    private static final int chunkBits = 5;
+    private static final int chunkSize = 1 << chunkBits;
+    private static final int chunkMask = chunkSize - 1;
+
+    private static final class Chunk {
+        final char[] tiles = new char[chunkSize * chunkSize];
+        final int[] rowBits = new int[chunkSize]; // Occupied columns of each row in the chunk
+        final int[] colBits = new int[chunkSize]; // Occupied rows of each column in the chunk
+        int count;
+
+        Chunk() {
+            Arrays.fill(tiles, ' ');
+        }
+    }
+
+    private final Map<Long, Chunk> chunks = new HashMap<>();
+    private long lastKey;
+    private Chunk lastChunk; // Placement reads along a line, so consecutive lookups usually hit the same chunk
+
+    private static long key(int chunkRow, int chunkCol) {
+        return (long) chunkRow << 32 | (chunkCol & 0xFFFFFFFFL);
+    }
+
+    private Chunk chunk(int chunkRow, int chunkCol) {
+        long key = key(chunkRow, chunkCol);
+        if (lastChunk != null && lastKey == key) {
+            return lastChunk;
+        }
+
+        Chunk chunk = chunks.get(key);
+        if (chunk != null) {
+            lastKey = key;
+            lastChunk = chunk;
+        }
+        return chunk;
+    }
+
+    /**
+     * Gets the tile at (i, j)
+     *
+     * @param i row
+     * @param j column
+     * @return letter, or ' ' if empty
+     */
+    char get(int i, int j) {
+        Chunk chunk = chunk(i >> chunkBits, j >> chunkBits);
+        return chunk == null ? ' ' : chunk.tiles[(i & chunkMask) << chunkBits | (j & chunkMask)];
+    }
+
+    /**
+     * Places a tile at an empty cell
+     *
+     * @param i row
+     * @param j column
+     * @param letter letter to place
+     */
+    void set(int i, int j, char letter) {
+        Chunk chunk = chunk(i >> chunkBits, j >> chunkBits);
+        if (chunk == null) {
+            chunk = new Chunk();
+            chunks.put(key(i >> chunkBits, j >> chunkBits), chunk);
+        }
+
+        int row = i & chunkMask;
+        int col = j & chunkMask;
+        chunk.tiles[row << chunkBits | col] = letter;
+        chunk.rowBits[row] |= 1 << col;
+        chunk.colBits[col] |= 1 << row;
+        chunk.count++;
+    }
+
+    /**
+     * Removes the tile at an occupied cell, dropping its chunk once the chunk is empty
+     *
+     * @param i row
+     * @param j column
+     */
+    void remove(int i, int j) {
+        Chunk chunk = chunk(i >> chunkBits, j >> chunkBits);
+        int row = i & chunkMask;
+        int col = j & chunkMask;
+
+        chunk.tiles[row << chunkBits | col] = ' ';
+        chunk.rowBits[row] &= ~(1 << col);
+        chunk.colBits[col] &= ~(1 << row);
+        if (--chunk.count == 0) {
+            chunks.remove(key(i >> chunkBits, j >> chunkBits));
+            lastChunk = null;
+        }
+    }
+
+    /**
+     * Removes every tile
+     */
+    void clear() {
+        chunks.clear();
+        lastChunk = null;
+    }
+
+    /**
+     * Checks that row i has no tiles in columns from..to (inclusive), ignoring the skipped column
+     *
+     * @param i row
+     * @param from first column
+     * @param to last column
+     * @param skip column to ignore
+     * @return true if all the cells are empty
+     */
+    boolean isRowClear(int i, int from, int to, int skip) {
+        for (int chunkCol = from >> chunkBits; chunkCol <= to >> chunkBits; chunkCol++) {
+            Chunk chunk = chunk(i >> chunkBits, chunkCol);
+            if (chunk != null && (chunk.rowBits[i & chunkMask] & mask(chunkCol, from, to, skip)) != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks that column j has no tiles in rows from..to (inclusive), ignoring the skipped row
+     *
+     * @param j column
+     * @param from first row
+     * @param to last row
+     * @param skip row to ignore
+     * @return true if all the cells are empty
+     */
+    boolean isColumnClear(int j, int from, int to, int skip) {
+        for (int chunkRow = from >> chunkBits; chunkRow <= to >> chunkBits; chunkRow++) {
+            Chunk chunk = chunk(chunkRow, j >> chunkBits);
+            if (chunk != null && (chunk.colBits[j & chunkMask] & mask(chunkRow, from, to, skip)) != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Builds the mask of positions from..to that fall in a chunk, without the skipped position
+     */
+    private static int mask(int chunkIndex, int from, int to, int skip) {
+        int first = chunkIndex << chunkBits;
+        int low = Math.max(from, first) - first;
+        int high = Math.min(to, first + chunkMask) - first;
+
+        int mask = (-1 << low) & (-1 >>> (chunkMask - high));
+        if (skip >> chunkBits == chunkIndex) {
+            mask &= ~(1 << (skip & chunkMask));
+        }
+        return mask;
+    }
+}
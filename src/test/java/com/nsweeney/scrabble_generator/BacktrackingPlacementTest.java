@@ -0,0 +1,114 @@
+package com.nsweeney.scrabble_generator;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class BacktrackingPlacementTest {
+
+    /**
+     * Generates distinct random words from a small alphabet so most of them share letters
+     */
+    static List<String> randomWords(long seed, int count) {
+        Random random = new Random(seed);
+        String alphabet = "ETAOINSHRDLUCMFGPWYB";
+        Set<String> words = new LinkedHashSet<>();
+
+        while (words.size() < count) {
+            StringBuilder word = new StringBuilder();
+            int length = 3 + random.nextInt(6);
+            for (int n = 0; n < length; n++) {
+                word.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            words.add(word.toString());
+        }
+
+        return new ArrayList<>(words);
+    }
+
+    @Test
+    void ordersManyWordsWithoutBreakingTheSortContract() {
+        // TimSort only merges through a temporary array, where an unstable comparator is detected, from 32 elements
+        for (long seed = 0; seed < 20; seed++) {
+            Board board = new Board(1, randomWords(seed, 40), seed);
+            assertDoesNotThrow(() -> new BacktrackingPlacement(1_000).placeWords(board));
+        }
+    }
+
+    @Test
+    void placesAWordThatNeedsALetterFromALaterWord() {
+        // AOR has a single position on the starting word but can only fit once SNR is placed to cross it
+        List<String> words = List.of("IIENOEII", "LESTLO", "AOR", "SNR", "OLL");
+        Board board = new Board(1, words, 1);
+
+        assertTrue(new BacktrackingPlacement().placeWords(board));
+        assertValidLayout(board);
+    }
+
+    @Test
+    void treatsWordsInsideAnotherWordAsPlaced() {
+        // A, AT and CA only ever lie on tiles of CAT, so they cannot be placed on their own
+        List<String> words = List.of("CAT", "A", "TAC", "AT", "CA");
+        assertTrue(new Board(50, words, 1).placeWords());
+
+        Board board = new Board(1, words, 1);
+        assertTrue(new BacktrackingPlacement().placeWords(board));
+        assertValidLayout(board);
+    }
+
+    @Test
+    void solvesEveryOrderTheShuffleSolves() {
+        for (long seed = 0; seed < 60; seed++) {
+            List<String> words = randomWords(seed, 4 + (int) (seed % 6));
+            if (!new Board(50, words, seed).placeWords()) {
+                continue;
+            }
+
+            Board board = new Board(1, words, seed);
+            assertTrue(new BacktrackingPlacement().placeWords(board), "No layout for " + words);
+            assertValidLayout(board);
+        }
+    }
+
+    /**
+     * Checks that every run of two or more tiles, across and down, is one of the board's words and every word appears,
+     * either as a run or inside one
+     */
+    static void assertValidLayout(Board board) {
+        int size = board.getGridSize();
+        char[] layout = board.getLayout();
+        Set<String> words = new HashSet<>(board.getWords());
+        Set<String> found = new HashSet<>();
+
+        for (int across = 0; across < 2; across++) {
+            for (int line = 0; line < size; line++) {
+                StringBuilder run = new StringBuilder();
+                for (int n = 0; n <= size; n++) {
+                    char tile = n == size ? ' ' : across == 0 ? layout[line * size + n] : layout[n * size + line];
+                    if (tile != ' ') {
+                        run.append(tile);
+                        continue;
+                    }
+
+                    if (run.length() > 1) {
+                        assertTrue(words.contains(run.toString()), "Unexpected word " + run);
+                        found.add(run.toString());
+                    }
+                    run.setLength(0);
+                }
+            }
+        }
+
+        for (String word : words) {
+            assertTrue(found.stream().anyMatch(run -> run.contains(word)), "Missing word " + word);
+        }
+    }
+}
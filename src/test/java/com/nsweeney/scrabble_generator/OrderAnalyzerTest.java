@@ -0,0 +1,72 @@
+package com.nsweeney.scrabble_generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class OrderAnalyzerTest {
+
+    @Test
+    void rejectsWordsThatShareNoLettersWithTheRest() {
+        OrderAnalyzer.Analysis analysis = OrderAnalyzer.analyze(List.of("CAT", "DOG", "TAB", "GOD"));
+
+        assertTrue(analysis.isRejected());
+        assertTrue(analysis.words().isEmpty());
+        assertTrue(analysis.rejection().contains("DOG") && analysis.rejection().contains("GOD"), analysis.rejection());
+    }
+
+    @Test
+    void rejectsCharactersWithoutATile() {
+        OrderAnalyzer.Analysis digit = OrderAnalyzer.analyze(List.of("CAT", "C4T"));
+        assertTrue(digit.isRejected());
+        assertTrue(digit.rejection().contains("'4'"), digit.rejection());
+
+        assertTrue(OrderAnalyzer.analyze(List.of("CAF\u00C9", "FACE")).isRejected());
+        assertTrue(OrderAnalyzer.analyze(List.of("ICE CREAM")).isRejected());
+    }
+
+    @Test
+    void rejectsOrdersWithoutWords() {
+        assertTrue(OrderAnalyzer.analyze(null).isRejected());
+        assertTrue(OrderAnalyzer.analyze(List.of()).isRejected());
+        assertTrue(OrderAnalyzer.analyze(List.of("CAT", " ")).isRejected());
+        assertTrue(OrderAnalyzer.analyze(Arrays.asList("CAT", null)).isRejected());
+    }
+
+    @Test
+    void stripsAndUpperCasesWords() {
+        OrderAnalyzer.Analysis analysis = OrderAnalyzer.analyze(List.of(" cat ", "Tab\t"));
+
+        assertFalse(analysis.isRejected());
+        assertNull(analysis.rejection());
+        assertEquals(List.of("CAT", "TAB"), analysis.words());
+    }
+
+    @Test
+    void dropsRepeatedWordsAndWordsInsideAnotherWord() {
+        assertEquals(List.of("CAT", "TAB"), OrderAnalyzer.analyze(List.of("CAT", "A", "at", "cat", "TAB", "B")).words());
+        // A word on its own is kept even when it is a single letter
+        assertEquals(List.of("A"), OrderAnalyzer.analyze(List.of("A", "a")).words());
+    }
+
+    @Test
+    void ordersWordsBreadthFirstFromTheMostOverlappingWord() {
+        // TAPE shares a letter with PIG, CAT and ELK. PIG also shares one with GNU, so it comes first of TAPE's neighbours,
+        // CAT and ELK tie and keep their given order, and GNU is only reached through PIG
+        OrderAnalyzer.Analysis analysis = OrderAnalyzer.analyze(List.of("pig", "cat", "GNU", "Tape", "elk"));
+
+        assertEquals(List.of("TAPE", "PIG", "CAT", "ELK", "GNU"), analysis.words());
+    }
+
+    @Test
+    void prefersLongerWordsWhenOverlapsTie() {
+        // Every word overlaps the other two, so the longest starts and is followed by the longer of the others
+        assertEquals(List.of("TABLE", "BEAT", "ATE"), OrderAnalyzer.analyze(List.of("ATE", "BEAT", "TABLE")).words());
+    }
+}
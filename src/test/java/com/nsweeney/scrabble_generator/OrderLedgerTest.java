@@ -0,0 +1,151 @@
+package com.nsweeney.scrabble_generator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OrderLedgerTest {
+
+    @TempDir
+    Path directory;
+
+    private Path ledgerPath() {
+        return directory.resolve("orders.ledger");
+    }
+
+    private void writeLedger(String content) throws IOException {
+        Files.writeString(ledgerPath(), content, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void replaysTheLatestStateOfEachOrder() throws IOException {
+        try (OrderLedger ledger = new OrderLedger(ledgerPath())) {
+            ledger.record("a", OrderLedger.State.pending);
+            ledger.recordFailure("a", OrderLedger.State.failed, new OrderLedger.Failure(1, 1234, "No layout\tfound\n"));
+            ledger.record("b", OrderLedger.State.pending);
+            ledger.record("b", OrderLedger.State.done);
+            ledger.recordFailure("c", OrderLedger.State.deadLettered, new OrderLedger.Failure(4, 0, "Gave up"));
+        }
+
+        try (OrderLedger ledger = new OrderLedger(ledgerPath())) {
+            assertEquals(OrderLedger.State.failed, ledger.getState("a"));
+            assertEquals(new OrderLedger.Failure(1, 1234, "No layout found "), ledger.getFailure("a"));
+            assertEquals(OrderLedger.State.done, ledger.getState("b"));
+            assertNull(ledger.getFailure("b"));
+            assertEquals(OrderLedger.State.deadLettered, ledger.getState("c"));
+            assertEquals(4, ledger.getFailure("c").attempts());
+            assertNull(ledger.getState("d"));
+        }
+    }
+
+    @Test
+    void discardsATruncatedLastLine() throws IOException {
+        // A crash part way through appending "done\tb\n"
+        writeLedger("pending\ta\ndone\ta\npending\tb\ndone\tb");
+
+        try (OrderLedger ledger = new OrderLedger(ledgerPath())) {
+            assertEquals(OrderLedger.State.done, ledger.getState("a"));
+            assertEquals(OrderLedger.State.pending, ledger.getState("b"));
+            ledger.record("c", OrderLedger.State.done);
+        }
+
+        // The partial line is cut off, so the next entry starts on its own line
+        assertEquals(List.of("pending\ta", "done\ta", "pending\tb", "done\tc"), Files.readAllLines(ledgerPath()));
+        try (OrderLedger ledger = new OrderLedger(ledgerPath())) {
+            assertEquals(OrderLedger.State.pending, ledger.getState("b"));
+            assertEquals(OrderLedger.State.done, ledger.getState("c"));
+        }
+    }
+
+    @Test
+    void discardsATruncatedFailureEntry() throws IOException {
+        writeLedger("failed\ta\t1\t1000\tNo layout\nfailed\ta\t2\t20");
+
+        try (OrderLedger ledger = new OrderLedger(ledgerPath())) {
+            assertEquals(new OrderLedger.Failure(1, 1000, "No layout"), ledger.getFailure("a"));
+        }
+    }
+
+    @Test
+    void skipsInvalidEntries() throws IOException {
+        writeLedger("done\ta\nfinished\tb\nfailed\tc\tmany\t0\tBad attempts\n\npending\td\n");
+
+        try (OrderLedger ledger = new OrderLedger(ledgerPath())) {
+            assertEquals(OrderLedger.State.done, ledger.getState("a"));
+            assertNull(ledger.getState("b"));
+            assertNull(ledger.getState("c"));
+            assertEquals(OrderLedger.State.pending, ledger.getState("d"));
+        }
+    }
+
+    @Test
+    void compactsALedgerOfMostlySupersededEntries() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int n = 0; n < 600; n++) {
+            content.append("pending\torder").append(n % 10).append('\n');
+            content.append("done\torder").append(n % 10).append('\n');
+        }
+        content.append("failed\torder0\t1\t500\tNo layout\n");
+        writeLedger(content.toString());
+
+        try (OrderLedger ledger = new OrderLedger(ledgerPath())) {
+            assertEquals(OrderLedger.State.failed, ledger.getState("order0"));
+            assertEquals(OrderLedger.State.done, ledger.getState("order9"));
+        }
+
+        List<String> lines = Files.readAllLines(ledgerPath());
+        assertEquals(10, lines.size());
+        assertTrue(lines.contains("failed\torder0\t1\t500\tNo layout"));
+        assertFalse(Files.exists(directory.resolve("orders.ledger.tmp")));
+    }
+
+    @Test
+    void ignoresACompactionInterruptedBeforeItsMove() throws IOException {
+        // A crash while compacting leaves a partial temporary file beside the untouched ledger
+        StringBuilder content = new StringBuilder();
+        for (int n = 0; n < 1100; n++) {
+            content.append("pending\torder").append(n % 5).append('\n');
+        }
+        content.append("done\torder1\n");
+        writeLedger(content.toString());
+        Files.writeString(directory.resolve("orders.ledger.tmp"), "done\torder0\ndone\tor", StandardCharsets.UTF_8);
+
+        try (OrderLedger ledger = new OrderLedger(ledgerPath())) {
+            assertEquals(OrderLedger.State.pending, ledger.getState("order0"));
+            assertEquals(OrderLedger.State.done, ledger.getState("order1"));
+            assertNull(ledger.getState("or"));
+        }
+
+        // The next compaction replaces the leftover file
+        assertEquals(5, Files.readAllLines(ledgerPath()).size());
+        assertFalse(Files.exists(directory.resolve("orders.ledger.tmp")));
+    }
+
+    @Test
+    void bootstrapsFromTheOutputDirectory() throws IOException {
+        Files.createDirectories(directory.resolve("order1"));
+        Files.createDirectories(directory.resolve("order2"));
+        Files.writeString(directory.resolve("notes.txt"), "not an order");
+
+        try (OrderLedger ledger = new OrderLedger(ledgerPath())) {
+            assertEquals(OrderLedger.State.done, ledger.getState("order1"));
+            assertEquals(OrderLedger.State.done, ledger.getState("order2"));
+            assertNull(ledger.getState("notes.txt"));
+        }
+
+        try (OrderLedger ledger = new OrderLedger(ledgerPath())) {
+            assertEquals(OrderLedger.State.done, ledger.getState("order1"));
+            assertEquals(OrderLedger.State.done, ledger.getState("order2"));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.nsweeney.scrabble_generator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class PngEncoderTest {
+
+    private static ExecutorService executor;
+
+    @BeforeAll
+    static void startExecutor() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterAll
+    static void stopExecutor() {
+        executor.shutdown();
+    }
+
+    /**
+     * Generates an image with repeating patterns, which deflate matches across band boundaries, mixed with noise
+     */
+    static BufferedImage testImage(int width, int height, boolean alpha, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int a = alpha ? (x + y) % 7 == 0 ? random.nextInt(256) : 0xFF : 0xFF;
+                int r = (x * 7 + y * 3) & 0xFF;
+                int g = (x ^ y) & 0xFF;
+                int b = random.nextInt(8) == 0 ? random.nextInt(256) : (x / 16 * 16) & 0xFF;
+                image.setRGB(x, y, a << 24 | r << 16 | g << 8 | b);
+            }
+        }
+
+        return image;
+    }
+
+    static void assertRoundTrip(BufferedImage image, PngEncoder encoder) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.write(image, out);
+
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        assertNotNull(decoded, "ImageIO could not read the PNG");
+        assertEquals(image.getWidth(), decoded.getWidth());
+        assertEquals(image.getHeight(), decoded.getHeight());
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        assertArrayEquals(image.getRGB(0, 0, width, height, null, 0, width), decoded.getRGB(0, 0, width, height, null, 0, width));
+    }
+
+    @ParameterizedTest
+    @EnumSource(PngEncoder.Compression.class)
+    void roundTripsManyBands(PngEncoder.Compression compression) throws IOException {
+        // 300 RGBA pixels is 1201 bytes a row, so 1000 rows make five 256KB bands
+        PngEncoder encoder = new PngEncoder(compression, executor, 4);
+        assertRoundTrip(testImage(300, 1000, true, 1), encoder);
+        assertRoundTrip(testImage(300, 1000, false, 2), encoder);
+    }
+
+    @ParameterizedTest
+    @EnumSource(PngEncoder.Compression.class)
+    void roundTripsBandsOfOneRow(PngEncoder.Compression compression) throws IOException {
+        // Rows longer than a band give one band per row, and a single band in flight makes each wait for the one before
+        assertRoundTrip(testImage(70_000, 3, true, 3), new PngEncoder(compression, executor, 1));
+    }
+
+    @ParameterizedTest
+    @EnumSource(PngEncoder.Compression.class)
+    void roundTripsOneRow(PngEncoder.Compression compression) throws IOException {
+        PngEncoder encoder = new PngEncoder(compression, executor, 4);
+        assertRoundTrip(testImage(500, 1, true, 4), encoder);
+        assertRoundTrip(testImage(1, 1, false, 5), encoder);
+    }
+
+    @ParameterizedTest
+    @EnumSource(PngEncoder.Compression.class)
+    void roundTripsASingleBand(PngEncoder.Compression compression) throws IOException {
+        PngEncoder encoder = new PngEncoder(compression, executor, 4);
+        assertRoundTrip(testImage(64, 64, true, 6), encoder);
+        assertRoundTrip(testImage(64, 64, false, 7), encoder);
+    }
+}
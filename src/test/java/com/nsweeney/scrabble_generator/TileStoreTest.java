@@ -0,0 +1,129 @@
+package com.nsweeney.scrabble_generator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TileStoreTest {
+
+    /**
+     * Row or column to pass as the skipped position when nothing should be skipped
+     */
+    private static final int noSkip = Integer.MIN_VALUE;
+
+    @Test
+    void placesAndRemovesAcrossChunkBoundaries() {
+        TileStore store = new TileStore();
+
+        // Row -1 runs from column 29 in chunk 0 into chunk 1, column 31 from row -3 in chunk -1 into chunk 0
+        String across = "ACROSSES";
+        for (int n = 0; n < across.length(); n++) {
+            store.set(-1, 29 + n, across.charAt(n));
+        }
+        store.set(-3, 31, 'D');
+        store.set(-2, 31, 'O');
+        store.set(0, 31, 'N');
+
+        assertEquals('A', store.get(-1, 29));
+        assertEquals('S', store.get(-1, 36));
+        assertEquals('R', store.get(-1, 31));
+        assertEquals('D', store.get(-3, 31));
+        assertEquals(' ', store.get(-1, 37));
+        assertEquals(' ', store.get(-1, 28));
+
+        assertFalse(store.isRowClear(-1, 0, 100, noSkip));
+        assertFalse(store.isRowClear(-1, 32, 32, noSkip));
+        assertTrue(store.isRowClear(-1, 32, 32, 32));
+        assertTrue(store.isRowClear(-1, 37, 100, noSkip));
+        assertTrue(store.isRowClear(-1, -100, 28, noSkip));
+        assertTrue(store.isRowClear(-2, 32, 36, noSkip));
+        assertFalse(store.isRowClear(-2, 0, 40, noSkip));
+
+        assertFalse(store.isColumnClear(31, -3, 0, noSkip));
+        assertTrue(store.isColumnClear(31, -40, -4, noSkip));
+        assertTrue(store.isColumnClear(31, 1, 64, noSkip));
+        assertFalse(store.isColumnClear(31, -1, -1, noSkip));
+        assertTrue(store.isColumnClear(31, -1, -1, -1));
+        assertTrue(store.isColumnClear(30, -3, -2, noSkip));
+
+        // Undo in reverse, each chunk is dropped once it is empty and its masks must not leave anything behind
+        store.remove(0, 31);
+        store.remove(-2, 31);
+        store.remove(-3, 31);
+        for (int n = across.length() - 1; n >= 0; n--) {
+            store.remove(-1, 29 + n);
+        }
+
+        for (int i = -40; i <= 40; i++) {
+            assertTrue(store.isRowClear(i, -40, 80, noSkip), "Row " + i + " not clear");
+        }
+        for (int j = -40; j <= 80; j++) {
+            assertTrue(store.isColumnClear(j, -40, 40, noSkip), "Column " + j + " not clear");
+        }
+        assertEquals(' ', store.get(-1, 31));
+
+        // A dropped chunk is created again on the next placement
+        store.set(-1, 31, 'X');
+        assertEquals('X', store.get(-1, 31));
+        assertFalse(store.isRowClear(-1, 31, 31, noSkip));
+        assertFalse(store.isColumnClear(31, -1, -1, noSkip));
+    }
+
+    @Test
+    void indexesEachLetterInPlacementOrder() {
+        LetterIndex index = new LetterIndex();
+
+        // More cells than the initial capacity, so the arrays grow
+        for (int n = 0; n < 20; n++) {
+            index.add('E', n - 10, -n);
+        }
+        index.add('Q', 5, 6);
+        index.add('?', 7, 8);
+        index.add('!', 9, 10);
+
+        assertEquals(20, index.size('E'));
+        assertEquals(-10, index.row('E', 0));
+        assertEquals(-19, index.col('E', 19));
+        assertEquals(1, index.size('Q'));
+        assertEquals(0, index.size('A'));
+        // Letters outside A-Z share a bucket
+        assertEquals(2, index.size('?'));
+        assertEquals(9, index.row('?', 1));
+
+        index.removeLast('E');
+        index.removeLast('!');
+        assertEquals(19, index.size('E'));
+        assertEquals(-18, index.col('E', 18));
+        assertEquals(1, index.size('?'));
+
+        index.clear();
+        assertEquals(0, index.size('E'));
+        assertEquals(0, index.size('Q'));
+    }
+
+    @Test
+    void undoRestoresTheBoardAcrossChunkBoundaries() {
+        // The first word is centred on the origin, so it spans chunks -1 and 0
+        Board board = new Board(1, List.of("ABCDEFGH", "ZZZAZZZZZZZZZZZZZZZZZZZZZZZZZZZZZZZZZZ", "HIJ"), 1);
+        board.resetBoard("ABCDEFGH");
+        int boundingSize = board.getBoundingSize();
+        int[] before = board.findPlacements("HIJ");
+
+        // A vertical word through A, running from chunk -1 down into chunk 1
+        int[] placements = board.findPlacements("ZZZAZZZZZZZZZZZZZZZZZZZZZZZZZZZZZZZZZZ");
+        assertTrue(placements.length > 0);
+        board.placeWord(placements[0], placements[1], "ZZZAZZZZZZZZZZZZZZZZZZZZZZZZZZZZZZZZZZ",
+                Board.Direction.values()[placements[2]]);
+        assertTrue(board.getBoundingSize() > boundingSize);
+
+        board.undoLastPlacement();
+        assertEquals(boundingSize, board.getBoundingSize());
+        assertArrayEquals(before, board.findPlacements("HIJ"));
+        assertEquals(0, board.findPlacements("ZZZZ").length);
+    }
+}